@@ -0,0 +1,92 @@
+package org.openjfx;
+
+import java.util.Random;
+
+/** Deterministic synthetic signals for the analysis tests and benchmarks. */
+final class SignalFixtures {
+
+    static final float SAMPLE_RATE = 44100f;
+
+    private SignalFixtures() { }
+
+    static float[] create(String kind, int length) {
+        switch (kind) {
+            case "sine": return sine(length, 110.0);
+            case "chord": return chord(length);
+            case "noise": return noise(length, 42L);
+            default: throw new IllegalArgumentException("Unknown fixture: " + kind);
+        }
+    }
+
+    /** Pure tone with a few decaying harmonics, like a plucked A2. */
+    static float[] sine(int length, double hz) {
+        float[] out = new float[length];
+        for (int i = 0; i < length; i++) {
+            double t = i / SAMPLE_RATE;
+            double v = 0;
+            for (int h = 1; h <= 4; h++) v += Math.sin(2 * Math.PI * hz * h * t) / (h * h);
+            out[i] = (float) (0.5 * v);
+        }
+        return out;
+    }
+
+    /** Open E major voicing (E2 B2 E3 G#3 B3 E4) with harmonics. */
+    static float[] chord(int length) {
+        return chord(length, 40, 47, 52, 56, 59, 64);
+    }
+
+    /** Equal-level notes, each with harmonics. */
+    static float[] chord(int length, int... midis) {
+        float[] out = new float[length];
+        for (int midi : midis) {
+            double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
+            for (int i = 0; i < length; i++) {
+                double t = i / SAMPLE_RATE;
+                double v = 0;
+                for (int h = 1; h <= 3; h++) v += Math.sin(2 * Math.PI * hz * h * t) / h;
+                out[i] += (float) (0.12 * v);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * A plucked string somewhere in its decay: eight harmonics with random levels and phases,
+     * slightly sharp as on a real string, decaying faster the higher they are, plus white noise
+     * at {@code snrDb} below the signal. The same seed gives the same frame.
+     */
+    static float[] pluck(int length, double hz, double snrDb, long seed) {
+        Random random = new Random(seed);
+        double inharmonicity = random.nextDouble() * 1e-4;
+        int start = random.nextInt(20000);
+        double[] level = new double[9];
+        double[] phase = new double[9];
+        for (int h = 1; h <= 8; h++) {
+            level[h] = Math.pow(random.nextDouble(), 1.5) / h * (h == 2 && random.nextBoolean() ? 3 : 1);
+            phase[h] = random.nextDouble() * 2 * Math.PI;
+        }
+        float[] out = new float[length];
+        double energy = 0;
+        for (int i = 0; i < length; i++) {
+            double t = (start + i) / SAMPLE_RATE;
+            double v = 0;
+            for (int h = 1; h <= 8; h++) {
+                double partial = hz * h * Math.sqrt(1 + inharmonicity * h * h);
+                if (partial > 20000) break;
+                v += level[h] * Math.exp(-t * h * 1.5) * Math.sin(2 * Math.PI * partial * t + phase[h]);
+            }
+            out[i] = (float) (0.3 * v);
+            energy += out[i] * out[i];
+        }
+        double sigma = Math.sqrt(energy / length / Math.pow(10, snrDb / 10));
+        for (int i = 0; i < length; i++) out[i] += (float) (sigma * random.nextGaussian());
+        return out;
+    }
+
+    static float[] noise(int length, long seed) {
+        Random random = new Random(seed);
+        float[] out = new float[length];
+        for (int i = 0; i < length; i++) out[i] = (float) (0.2 * random.nextGaussian());
+        return out;
+    }
+}
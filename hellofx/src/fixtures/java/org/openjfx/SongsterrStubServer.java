@@ -0,0 +1,250 @@
+package org.openjfx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for Songsterr: one HTTP server per part CDN host, the first also serving
+ * search and song pages. Payloads are shaped like the real ones (search hit arrays, a song page
+ * with the state script between a head and a long body, part JSON with measures, beats and
+ * notes) and sized by the constructor. Each host can add latency and fail a share of part
+ * requests with 503, and all hosts count requests and bytes served. Latency can be changed while
+ * running and requests are also counted per host, so tests can see which host was asked.
+ */
+final class SongsterrStubServer implements AutoCloseable {
+
+    private static final Pattern SONG_ID = Pattern.compile("-tab-s(\\d+)");
+    private static final Pattern PART = Pattern.compile("/part/(\\d+)/(\\d+)");
+    static final int TRACKS_PER_SONG = 4;
+    static final int RESULTS_PER_SEARCH = 10;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ExecutorService handlers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "songsterr-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLongArray latencyMillis;
+    private final AtomicLongArray hostRequests;
+    private final double[] failureRate;
+    private final byte[] pageHead;
+    private final byte[] pageTail;
+    private final byte[] partPayload;
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong failures = new AtomicLong();
+    final AtomicLong bytesServed = new AtomicLong();
+
+    /**
+     * @param latencyMillis added delay per host, which also sets the number of hosts
+     * @param failureRate   share of part requests each host answers with 503
+     * @param partMeasures  measures in every served part
+     */
+    SongsterrStubServer(long[] latencyMillis, double[] failureRate, int partMeasures) throws IOException {
+        this.latencyMillis = new AtomicLongArray(latencyMillis);
+        this.hostRequests = new AtomicLongArray(latencyMillis.length);
+        this.failureRate = failureRate.clone();
+        pageHead = filler("<html><head>", "<meta name=\"x\" content=\"", 48 * 1024);
+        pageTail = filler("</script><body>", "<div class=\"line\">lyrics and markup</div>", 256 * 1024);
+        partPayload = part(partMeasures).getBytes(StandardCharsets.UTF_8);
+        for (int host = 0; host < latencyMillis.length; host++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            int index = host;
+            server.createContext("/", exchange -> handle(index, exchange));
+            server.setExecutor(handlers);
+            server.start();
+            servers.add(server);
+        }
+    }
+
+    SongsterrEndpoints endpoints() {
+        List<String> bases = new ArrayList<>();
+        for (HttpServer server : servers) {
+            bases.add("http://127.0.0.1:" + server.getAddress().getPort());
+        }
+        return new SongsterrEndpoints(bases.get(0) + "/api/songs?pattern=", bases.get(0) + "/a/wsa/", bases);
+    }
+
+    /** Delay for requests to the host from now on; requests already waiting keep theirs. */
+    void setLatency(int host, long millis) {
+        latencyMillis.set(host, millis);
+    }
+
+    /** Requests the host has received, of any kind. */
+    long requests(int host) {
+        return hostRequests.get(host);
+    }
+
+    int partBytes() {
+        return partPayload.length;
+    }
+
+    /** Revision the stub reports for a song; parts are addressed by it. */
+    static int revisionOf(int songId) {
+        return songId * 10 + 1;
+    }
+
+    @Override
+    public void close() {
+        for (HttpServer server : servers) {
+            server.stop(0);
+        }
+        handlers.shutdownNow();
+    }
+
+    private void handle(int host, HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            hostRequests.incrementAndGet(host);
+            long latency = latencyMillis.get(host);
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            String path = exchange.getRequestURI().getPath();
+            boolean part = PART.matcher(path).matches();
+            // Only part requests fail: the client retries those on another host, not the rest
+            if (part && ThreadLocalRandom.current().nextDouble() < failureRate[host]) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            if (path.startsWith("/api/songs")) {
+                String query = exchange.getRequestURI().getQuery();
+                send(exchange, search(query != null ? query : ""));
+            } else if (path.startsWith("/a/wsa/")) {
+                Matcher m = SONG_ID.matcher(path);
+                if (!m.find()) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                sendPage(exchange, Integer.parseInt(m.group(1)));
+            } else if (part) {
+                send(exchange, partPayload);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytesServed.addAndGet(body.length);
+    }
+
+    /** Streams head, state and tail, so a client that stops early really leaves the tail unsent. */
+    private void sendPage(HttpExchange exchange, int songId) throws IOException {
+        byte[] state = state(songId).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, pageHead.length + state.length + pageTail.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (byte[] chunk : new byte[][]{pageHead, state, pageTail}) {
+                for (int off = 0; off < chunk.length; off += 8192) {
+                    int len = Math.min(8192, chunk.length - off);
+                    out.write(chunk, off, len);
+                    bytesServed.addAndGet(len);
+                }
+            }
+        } catch (IOException ex) {
+            // The client closed the connection once it had what it needed
+        }
+    }
+
+    private static byte[] search(String query) {
+        int base = (query.hashCode() & 0xFFFFF) * RESULTS_PER_SEARCH + 1;
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < RESULTS_PER_SEARCH; i++) {
+            int songId = base + i;
+            if (i > 0) sb.append(',');
+            sb.append("{\"songId\":").append(songId)
+                    .append(",\"artist\":\"Stub Artist ").append(i)
+                    .append("\",\"title\":\"Stub Song ").append(songId).append("\",\"tracks\":[");
+            for (int t = 0; t < TRACKS_PER_SONG; t++) {
+                if (t > 0) sb.append(',');
+                sb.append("{\"hash\":\"").append(trackHash(songId, t))
+                        .append("\",\"name\":\"Track ").append(t)
+                        .append("\",\"instrument\":\"Electric Guitar\",\"difficulty\":3,\"tuning\":[64,59,55,50,45,40]}");
+            }
+            sb.append("]}");
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String trackHash(int songId, int track) {
+        return "h" + songId + "_" + track;
+    }
+
+    private static String state(int songId) {
+        StringBuilder sb = new StringBuilder("<script id=\"state\" type=\"application/json\">");
+        sb.append("{\"route\":{\"page\":\"song\"},\"meta\":{\"current\":{\"songId\":").append(songId)
+                .append(",\"revisionId\":").append(revisionOf(songId)).append(",\"tracks\":[");
+        for (int t = 0; t < TRACKS_PER_SONG; t++) {
+            if (t > 0) sb.append(',');
+            sb.append("{\"hash\":\"").append(trackHash(songId, t)).append("\",\"partId\":").append(t)
+                    .append(",\"name\":\"Track ").append(t).append("\",\"tuning\":[64,59,55,50,45,40]}");
+        }
+        // The real state goes on with comments, lyrics and more; the client should never read it
+        sb.append("]}},\"comments\":[");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"text\":\"great tab, thanks for sharing this one\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String part(int measures) {
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(measures * 400);
+        sb.append("{\"name\":\"Track\",\"instrument\":\"Electric Guitar\",\"strings\":6,\"frets\":24,")
+                .append("\"tuning\":[64,59,55,50,45,40],\"measures\":[");
+        for (int m = 0; m < measures; m++) {
+            if (m > 0) sb.append(',');
+            sb.append('{');
+            if (m == 0) sb.append("\"signature\":[4,4],");
+            sb.append("\"voices\":[{\"beats\":[");
+            for (int b = 0; b < 8; b++) {
+                if (b > 0) sb.append(',');
+                sb.append("{\"type\":8,\"duration\":[1,8],\"velocity\":\"mf\",\"notes\":[");
+                int notes = 1 + random.nextInt(3);
+                for (int n = 0; n < notes; n++) {
+                    if (n > 0) sb.append(',');
+                    sb.append(String.format(Locale.ROOT, "{\"string\":%d,\"fret\":%d}", random.nextInt(6), random.nextInt(15)));
+                }
+                sb.append("]}");
+            }
+            sb.append("]}]}");
+        }
+        sb.append("],\"automations\":{\"tempo\":[{\"measure\":0,\"position\":0,\"bpm\":120}]}}");
+        return sb.toString();
+    }
+
+    private static byte[] filler(String start, String unit, int size) {
+        StringBuilder sb = new StringBuilder(size + unit.length());
+        sb.append(start);
+        while (sb.length() < size) sb.append(unit).append("\">\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,211 @@
+package org.openjfx;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.SpectralPeakProcessor;
+import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import be.tarsos.dsp.pitch.Yin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-hop and per-stage cost of the detector at the default {@link PipelineConfig} framing.
+ * Run with {@code java -jar target/benchmarks.jar AnalysisBenchmark -prof gc} to get
+ * ns/op alongside gc.alloc.rate.norm (bytes allocated per op).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+
+    private static final PipelineConfig CONFIG = PipelineConfig.DEFAULT;
+
+    @Param({"sine", "chord", "noise"})
+    public String signal;
+
+    private AnalysisPipeline pipeline;
+    private float[] frame;
+    private float[] spectralWindow;
+    private float[] chromaWindow;
+    private float[] magnitudes;
+    private float[] frequencies;
+    private float[] noiseFloor;
+    private List<Integer> localMaxima;
+    private double[] chroma;
+    private AnalysisFrame lastFrame;
+    private SpectralPeakPicker picker;
+    private float[] tunerFrame;
+    private TunerPitchDetector tunerDetector;
+    private Yin yin;
+    private GuitarPitchDetector guitarDetector;
+
+    @Setup
+    public void setup() throws Exception {
+        List<AnalysisFrame> results = new ArrayList<>();
+        pipeline = new AnalysisPipeline(SignalFixtures.SAMPLE_RATE, 440.0, CONFIG, frame -> results.add(frame.copy()));
+        int chromaLength = pipeline.chromaWindowLength();
+        float[] audio = SignalFixtures.create(signal, chromaLength + CONFIG.pitchWindow * 4);
+        frame = tail(audio, CONFIG.pitchWindow);
+        spectralWindow = tail(audio, CONFIG.spectralWindow);
+        chromaWindow = tail(audio, chromaLength);
+        // The chroma stage takes its window newest sample first
+        for (int i = 0, j = chromaLength - 1; i < j; i++, j--) {
+            float t = chromaWindow[i]; chromaWindow[i] = chromaWindow[j]; chromaWindow[j] = t;
+        }
+
+        // Prime the pipeline (stage windows and spectral peak state) by running the fixture through it once.
+        AudioDispatcher dispatcher = AudioDispatcherFactory.fromFloatArray(audio, (int) SignalFixtures.SAMPLE_RATE,
+                CONFIG.pitchWindow, CONFIG.pitchOverlap());
+        pipeline.attach(dispatcher);
+        dispatcher.run();
+
+        int spectralOverlap = CONFIG.spectralWindow - CONFIG.spectralHop;
+        SpectralPeakProcessor spectral = new SpectralPeakProcessor(CONFIG.spectralWindow, spectralOverlap, (int) SignalFixtures.SAMPLE_RATE);
+        AudioDispatcher peaksOnly = AudioDispatcherFactory.fromFloatArray(audio, (int) SignalFixtures.SAMPLE_RATE,
+                CONFIG.spectralWindow, spectralOverlap);
+        peaksOnly.addAudioProcessor(spectral);
+        peaksOnly.run();
+        magnitudes = spectral.getMagnitudes().clone();
+        frequencies = spectral.getFrequencyEstimates().clone();
+        noiseFloor = SpectralPeakProcessor.calculateNoiseFloor(magnitudes, 31, 1.2f);
+        localMaxima = SpectralPeakProcessor.findLocalMaxima(magnitudes, noiseFloor);
+        chroma = pipeline.computeChroma(chromaWindow).clone();
+        lastFrame = results.get(results.size() - 1);
+        picker = new SpectralPeakPicker(magnitudes.length, 31, 1.2f, 8, 60);
+        tunerFrame = tail(audio, TunerPipeline.WINDOW);
+        tunerDetector = new TunerPitchDetector(SignalFixtures.SAMPLE_RATE, TunerPipeline.WINDOW, 60, 450);
+        yin = new Yin(SignalFixtures.SAMPLE_RATE, CONFIG.pitchWindow);
+        double[] range = GuitarPitchDetector.playableRange(pipeline.plan(), AnalysisPlan.STANDARD_TUNING, AnalysisPipeline.FRETS);
+        guitarDetector = new GuitarPitchDetector(SignalFixtures.SAMPLE_RATE, CONFIG.pitchWindow, range[0], range[1]);
+        checkPitchAgreement();
+    }
+
+    /**
+     * The pruned search has to give YIN's answer wherever YIN finds a playable note: every note
+     * from the open low E to the 24th fret of the high E, a quarter tone either side, and this
+     * fixture. Timing a search that answers differently would mean nothing.
+     */
+    private void checkPitchAgreement() {
+        for (int midi = 40; midi <= 88; midi++) {
+            for (double offset = -0.5; offset <= 0.5; offset += 0.25) {
+                double hz = 440.0 * Math.pow(2.0, (midi + offset - 69) / 12.0);
+                checkPitchAgreement(SignalFixtures.sine(CONFIG.pitchWindow, hz), hz);
+            }
+        }
+        checkPitchAgreement(frame, -1);
+    }
+
+    private void checkPitchAgreement(float[] audio, double hz) {
+        PitchDetectionResult full = yin.getPitch(audio);
+        float fullPitch = full.getPitch();
+        float fullProbability = full.getProbability();
+        PitchDetectionResult pruned = guitarDetector.getPitch(audio);
+        boolean agree = fullPitch > 0 && pruned.getPitch() > 0
+                ? Math.abs(AnalysisPlan.cents(pruned.getPitch(), fullPitch)) < 1 && Math.abs(pruned.getProbability() - fullProbability) < 1e-3
+                : fullPitch == pruned.getPitch();
+        if (!agree) {
+            throw new IllegalStateException(String.format("Pitch search disagrees with YIN on %s %.2f Hz: %.2f Hz (p %.3f) vs %.2f Hz (p %.3f)",
+                    hz > 0 ? "note" : signal, hz, pruned.getPitch(), pruned.getProbability(), fullPitch, fullProbability));
+        }
+    }
+
+    private static float[] tail(float[] audio, int length) {
+        float[] out = new float[length];
+        System.arraycopy(audio, audio.length - length, out, 0, length);
+        return out;
+    }
+
+    /** One dispatcher hop: pitch-rate bookkeeping plus whichever stages fall due, averaged over hops. */
+    @Benchmark
+    public void processHop() {
+        pipeline.processHop(frame, 0);
+    }
+
+    @Benchmark
+    public void analyzeSpectrum() {
+        pipeline.analyzeSpectrum(spectralWindow);
+    }
+
+    @Benchmark
+    public double[] computeChroma() {
+        return pipeline.computeChroma(chromaWindow);
+    }
+
+    @Benchmark
+    public String guessChordFromChroma() {
+        return AnalysisPipeline.guessChordFromChroma(chroma);
+    }
+
+    @Benchmark
+    public String estimateGesture() {
+        return pipeline.estimateGesture();
+    }
+
+    @Benchmark
+    public String estimateHarmonics() {
+        return AnalysisPipeline.estimateHarmonics(lastFrame.noteHz, lastFrame.noteCount);
+    }
+
+    @Benchmark
+    public float[] calculateNoiseFloor() {
+        return SpectralPeakProcessor.calculateNoiseFloor(magnitudes, 31, 1.2f);
+    }
+
+    /** The picker's sliding median over the same spectrum. */
+    @Benchmark
+    public float[] slidingNoiseFloor() {
+        picker.calculateNoiseFloor(magnitudes);
+        return picker.noiseFloor();
+    }
+
+    @Benchmark
+    public List<Integer> findLocalMaxima() {
+        return SpectralPeakProcessor.findLocalMaxima(magnitudes, noiseFloor);
+    }
+
+    @Benchmark
+    public List<SpectralPeakProcessor.SpectralPeak> findPeaks() {
+        // findPeaks prunes the index list in place, so each call gets a fresh copy.
+        return SpectralPeakProcessor.findPeaks(magnitudes, frequencies, new ArrayList<>(localMaxima), 8, 60);
+    }
+
+    /** Allocation-free replacement for the three SpectralPeakProcessor calls above. */
+    @Benchmark
+    public int pickPeaks() {
+        return picker.pick(magnitudes, frequencies);
+    }
+
+    /** TarsosDSP's YIN over every lag, as the pipeline ran it before. */
+    @Benchmark
+    public float yinPitch() {
+        return yin.getPitch(frame).getPitch();
+    }
+
+    /** The pipeline's pitch search, pruned to standard guitar with a 24-fret neck. */
+    @Benchmark
+    public float guitarPitch() {
+        return guitarDetector.getPitch(frame).getPitch();
+    }
+
+    /** Tuner-mode cost per hop; the whole tuner pipeline is this one call. */
+    @Benchmark
+    public float tunerPitch() {
+        return tunerDetector.getPitch(tunerFrame).getPitch();
+    }
+}
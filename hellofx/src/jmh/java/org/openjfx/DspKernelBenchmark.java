@@ -0,0 +1,84 @@
+package org.openjfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar against vector {@link DspKernels} at the sizes the pipeline uses, and the pitch search
+ * built on them. Needs JDK 17+ built with the {@code vector} profile (the forks add the incubator
+ * module). The vector width is the CPU's: on an AVX-512 machine, compare with AVX2 through
+ * {@code java -jar target/benchmarks.jar DspKernelBenchmark -jvmArgsAppend -XX:UseAVX=2}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class DspKernelBenchmark {
+
+    private static final PipelineConfig CONFIG = PipelineConfig.DEFAULT;
+    // A1 to A7 at 36 bins per octave, as the pipeline's Constant-Q
+    private static final int CQT_BINS = 216;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private DspKernels k;
+    private float[] frame;
+    private float[] magnitudes;
+    private float[] weights;
+    private float[] weighted;
+    private GuitarPitchDetector detector;
+    private int lag;
+
+    @Setup
+    public void setup() {
+        k = "vector".equals(kernels) ? DspKernels.INSTANCE : DspKernels.SCALAR;
+        if ("vector".equals(kernels) && k == DspKernels.SCALAR) {
+            throw new IllegalStateException("Vector kernels unavailable: build on JDK 17+ so the vector profile is active");
+        }
+        frame = SignalFixtures.create("sine", CONFIG.pitchWindow);
+        magnitudes = new float[CQT_BINS];
+        weights = new float[CQT_BINS];
+        weighted = new float[CQT_BINS];
+        for (int i = 0; i < CQT_BINS; i++) {
+            magnitudes[i] = (float) (1 + Math.abs(Math.sin(i * 0.37)) * 40);
+            weights[i] = (float) (1 / Math.sqrt(Math.max(1, 55 * Math.pow(2, i / 36.0) / 110)));
+        }
+        AnalysisPlan plan = AnalysisPlan.create(440.0, null, AnalysisPlan.STANDARD_TUNING);
+        double[] range = GuitarPitchDetector.playableRange(plan, AnalysisPlan.STANDARD_TUNING, AnalysisPipeline.FRETS);
+        detector = new GuitarPitchDetector(SignalFixtures.SAMPLE_RATE, CONFIG.pitchWindow, range[0], range[1], k);
+    }
+
+    /** One lag of the YIN difference function over half the pitch window. */
+    @Benchmark
+    public double squaredDistance() {
+        lag = (lag + 1) & 511;
+        return k.squaredDistance(frame, 0, 1 + lag, CONFIG.pitchWindow / 2);
+    }
+
+    /** Log compression of one Constant-Q frame. */
+    @Benchmark
+    public float[] log1pScaled() {
+        k.log1pScaled(magnitudes, weights, weighted, CQT_BINS);
+        return weighted;
+    }
+
+    /** The whole per-hop pitch search on these kernels. */
+    @Benchmark
+    public float guitarPitch() {
+        return detector.getPitch(frame).getPitch();
+    }
+}
@@ -0,0 +1,151 @@
+package org.openjfx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Songsterr client paths against {@link SongsterrStubServer}, several callers at once:
+ * search, song details, a part from the CDN hosts (cold) and from the disk cache (warm).
+ * Every op uses a fresh term, song or revision so the in-memory caches never answer, except
+ * in the warm part benchmark, which is what it measures.
+ * <p>
+ * {@code java -jar target/benchmarks.jar SongsterrClientBenchmark -prof gc} reports ops/s and
+ * the latency distribution (p99 under SampleTime) with gc.alloc.rate.norm (bytes allocated per
+ * op); wire bytes per op are printed after each iteration.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongsterrClientBenchmark {
+
+    // Warm reads rotate over several parts so the threads do not all join one shared load
+    private static final int WARM_PARTS = 64;
+
+    /** Latency every stub host adds to each response. */
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    /** Share of requests the first part host fails, to exercise ranking and hedging. */
+    @Param({"0", "0.3"})
+    public double firstHostFailureRate;
+
+    @Param({"200"})
+    public int partMeasures;
+
+    private SongsterrStubServer stub;
+    private ExecutorService executor;
+    private Path cacheDir;
+    private SongsterrService songsterr;
+    private final SongDetails[] warmDetails = new SongDetails[WARM_PARTS];
+    private SongTrackInfo firstPart;
+    private final AtomicInteger nextId = new AtomicInteger(WARM_PARTS + 1);
+    private final AtomicLong ops = new AtomicLong();
+    private long bytesAtStart;
+    private long requestsAtStart;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stub = new SongsterrStubServer(
+                new long[]{latencyMillis, latencyMillis, latencyMillis},
+                new double[]{firstHostFailureRate, 0, 0},
+                partMeasures);
+        executor = Executors.newFixedThreadPool(4);
+        cacheDir = Files.createTempDirectory("songsterr-bench");
+        songsterr = new SongsterrService(new SongsterrDiskCache(cacheDir, 1L << 30), new SongIndex(null), stub.endpoints(), executor);
+        firstPart = new SongTrackInfo(0, 0);
+        for (int i = 0; i < WARM_PARTS; i++) {
+            warmDetails[i] = details(i + 1);
+            songsterr.tabPart(warmDetails[i], firstPart).join();
+        }
+        System.out.println("[Bench] part payload " + stub.partBytes() + " bytes, " + stub.endpoints());
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        ops.set(0);
+        bytesAtStart = stub.bytesServed.get();
+        requestsAtStart = stub.requests.get();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportWire() {
+        long count = Math.max(1, ops.get());
+        System.out.println(String.format(Locale.ROOT, "%n[Bench] %d ops, %.1f requests/op, %.0f wire bytes/op",
+                ops.get(), (stub.requests.get() - requestsAtStart) / (double) count,
+                (stub.bytesServed.get() - bytesAtStart) / (double) count));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        stub.close();
+        executor.shutdownNow();
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            List<Path> paths = new ArrayList<>();
+            files.forEach(paths::add);
+            paths.sort(Comparator.reverseOrder());
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<SongItem> search() {
+        ops.incrementAndGet();
+        return songsterr.search("stub term " + nextId.getAndIncrement()).join();
+    }
+
+    @Benchmark
+    public SongDetails songDetails() {
+        ops.incrementAndGet();
+        int songId = nextId.getAndIncrement();
+        return songsterr.songDetails(new SongItem(songId, "Stub Artist", "Stub Song " + songId, Collections.emptyList())).join();
+    }
+
+    @Benchmark
+    public TabPart tabPartCold() {
+        ops.incrementAndGet();
+        return songsterr.tabPart(details(nextId.getAndIncrement()), firstPart).join();
+    }
+
+    @Benchmark
+    public TabPart tabPartDiskCached() {
+        ops.incrementAndGet();
+        return songsterr.tabPart(warmDetails[nextId.getAndIncrement() % WARM_PARTS], firstPart).join();
+    }
+
+    private static SongDetails details(int songId) {
+        return new SongDetails(songId, SongsterrStubServer.revisionOf(songId), Collections.emptyMap());
+    }
+}
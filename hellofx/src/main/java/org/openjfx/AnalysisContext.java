@@ -0,0 +1,83 @@
+package org.openjfx;
+
+/**
+ * Preallocated per-pipeline working state: primitive ring buffers for the chroma and pitch
+ * histories plus scratch arrays, so that steady-state analysis does not allocate.
+ * Owned by a single analysis thread.
+ */
+final class AnalysisContext {
+
+    static final int CHROMA_HISTORY = 8;
+    static final int PITCH_HISTORY = 50;
+    static final int MAX_NOTES = 6;
+
+    final StageWindow spectralWindow;
+    final StageWindow chromaWindow;
+    final float[] spectralInput;
+    final float[] cqtInput;
+    /** Log-compressed, weighted Constant-Q magnitudes, before they are summed per pitch class. */
+    final float[] cqtWeighted;
+    final double[] chroma = new double[12];
+    final double[] avgChroma = new double[12];
+    final int[] topPitchClasses = new int[MAX_NOTES];
+    final double[] cents = new double[PITCH_HISTORY];
+    final SpectralPeakPicker peaks;
+    final AnalysisFrame frame;
+
+    private final double[] chromaRing = new double[CHROMA_HISTORY * 12];
+    private int chromaHead;
+    private int chromaCount;
+
+    private final double[] pitchRing = new double[PITCH_HISTORY];
+    private int pitchHead;
+    private int pitchCount;
+
+    AnalysisContext(PipelineConfig config, int cqtFftLen, int cqtBins) {
+        int spectrumBins = config.spectralBins();
+        this.spectralWindow = new StageWindow(config.spectralWindow, config.spectralHop);
+        this.chromaWindow = new StageWindow(cqtFftLen, config.chromaHop);
+        this.spectralInput = new float[config.spectralWindow];
+        this.cqtInput = new float[cqtFftLen];
+        this.cqtWeighted = new float[cqtBins];
+        this.peaks = new SpectralPeakPicker(spectrumBins, 31, 1.2f, 8, 60);
+        this.frame = new AnalysisFrame(spectrumBins, spectrumBins, MAX_NOTES);
+    }
+
+    void pushChroma(double[] chroma) {
+        System.arraycopy(chroma, 0, chromaRing, chromaHead * 12, 12);
+        chromaHead = (chromaHead + 1) % CHROMA_HISTORY;
+        if (chromaCount < CHROMA_HISTORY) chromaCount++;
+    }
+
+    /** Mean of the chroma history, normalized to [0,1]. */
+    double[] averageChroma() {
+        double[] out = avgChroma;
+        java.util.Arrays.fill(out, 0);
+        if (chromaCount == 0) return out;
+        for (int f = 0; f < chromaCount; f++) {
+            int base = f * 12;
+            for (int i = 0; i < 12; i++) out[i] += chromaRing[base + i];
+        }
+        for (int i = 0; i < 12; i++) out[i] /= chromaCount;
+        double max = 0; for (double v : out) max = Math.max(max, v);
+        if (max > 0) for (int i = 0; i < 12; i++) out[i] /= max;
+        return out;
+    }
+
+    /** Pushes a pitch expressed in absolute cents. */
+    void pushPitchCents(double cents) {
+        pitchRing[pitchHead] = cents;
+        pitchHead = (pitchHead + 1) % PITCH_HISTORY;
+        if (pitchCount < PITCH_HISTORY) pitchCount++;
+    }
+
+    int pitchCount() {
+        return pitchCount;
+    }
+
+    /** i-th pitch in the history in absolute cents, oldest first. */
+    double pitchCentsAt(int i) {
+        int start = pitchCount < PITCH_HISTORY ? 0 : pitchHead;
+        return pitchRing[(start + i) % PITCH_HISTORY];
+    }
+}
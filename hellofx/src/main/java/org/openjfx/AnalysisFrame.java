@@ -0,0 +1,76 @@
+package org.openjfx;
+
+/**
+ * Everything the pipeline derived from one hop. Instances are reused by the pipeline; listeners
+ * must copy what they keep beyond the callback.
+ */
+final class AnalysisFrame {
+
+    double timeStamp;
+    /** System.nanoTime() at which the newest sample behind this frame was captured, 0 if unknown. */
+    long captureNanos;
+    float pitchHz = -1;
+    float probability;
+
+    final float[] magnitudes;
+    int peakCount;
+    final int[] peakBins;
+    final float[] peakHz;
+
+    int noteCount;
+    final int[] noteMidi;
+    final double[] noteHz;
+    final String[] noteNames;
+
+    /** Constant-Q chroma of the latest chroma hop, normalized to [0,1]; all zero in tuner mode. */
+    final double[] chroma = new double[12];
+
+    String chord = "--";
+    String gesture = "--";
+    String harmonics = "--";
+
+    AnalysisFrame(int bins, int maxPeaks, int maxNotes) {
+        this.magnitudes = new float[bins];
+        this.peakBins = new int[maxPeaks];
+        this.peakHz = new float[maxPeaks];
+        this.noteMidi = new int[maxNotes];
+        this.noteHz = new double[maxNotes];
+        this.noteNames = new String[maxNotes];
+    }
+
+    AnalysisFrame copy() {
+        AnalysisFrame copy = new AnalysisFrame(magnitudes.length, peakBins.length, noteMidi.length);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    void copyFrom(AnalysisFrame other) {
+        timeStamp = other.timeStamp;
+        captureNanos = other.captureNanos;
+        pitchHz = other.pitchHz;
+        probability = other.probability;
+        System.arraycopy(other.magnitudes, 0, magnitudes, 0, Math.min(magnitudes.length, other.magnitudes.length));
+        peakCount = Math.min(other.peakCount, peakBins.length);
+        System.arraycopy(other.peakBins, 0, peakBins, 0, peakCount);
+        System.arraycopy(other.peakHz, 0, peakHz, 0, peakCount);
+        noteCount = Math.min(other.noteCount, noteMidi.length);
+        System.arraycopy(other.noteMidi, 0, noteMidi, 0, noteCount);
+        System.arraycopy(other.noteHz, 0, noteHz, 0, noteCount);
+        System.arraycopy(other.noteNames, 0, noteNames, 0, noteCount);
+        System.arraycopy(other.chroma, 0, chroma, 0, chroma.length);
+        chord = other.chord;
+        gesture = other.gesture;
+        harmonics = other.harmonics;
+    }
+
+    /** Note names joined with the separator; allocates, so keep it off the audio thread. */
+    String notesLabel(String separator) {
+        if (noteCount == 0) return "--";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < noteCount; i++) {
+            if (i > 0) sb.append(separator);
+            sb.append(noteNames[i]);
+        }
+        return sb.toString();
+    }
+}
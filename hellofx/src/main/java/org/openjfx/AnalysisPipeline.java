@@ -0,0 +1,445 @@
+package org.openjfx;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.ConstantQ;
+import be.tarsos.dsp.SpectralPeakProcessor;
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+
+/**
+ * YIN pitch (searched over what the tuning can play, see {@link GuitarPitchDetector}) + spectral
+ * peaks + Constant-Q chroma chain, independent of the UI.
+ * One instance per audio stream; all callbacks run on the dispatcher thread.
+ * The dispatcher delivers pitch-sized frames; the spectral and chroma stages run from their own
+ * sliding windows at their own hops (see {@link PipelineConfig}).
+ */
+final class AnalysisPipeline {
+
+    interface Listener {
+        /** Called once per pitch hop on the dispatcher thread; the frame is reused after returning. */
+        void onFrame(AnalysisFrame frame);
+    }
+
+    /** Frets searched above the highest open string. */
+    static final int FRETS = 24;
+    // Pitch search margin around the playable range, for detuned strings and bends
+    private static final double RANGE_MARGIN = Math.pow(2.0, 300 / 1200.0);
+
+    private static final String[] NOTE_NAMES = {"C","C#","D","D#","E","F","F#","G","G#","A","A#","B"};
+    // Label tables so the per-hop path never concatenates strings
+    private static final String[] NOTE_LABELS = new String[128];
+    private static final String[][] CHORD_LABELS = new String[12][];
+    private static final String[] HARMONIC_LABELS = new String[AnalysisContext.MAX_NOTES];
+
+    static {
+        for (int midi = 0; midi < NOTE_LABELS.length; midi++) {
+            NOTE_LABELS[midi] = NOTE_NAMES[midi % 12] + ((midi / 12) - 1);
+        }
+        for (int root = 0; root < 12; root++) {
+            String n = NOTE_NAMES[root];
+            CHORD_LABELS[root] = new String[]{n + " 5", n + " Maj", n + " Min", n + " 7", n + " m7"};
+        }
+        for (int count = 0; count < HARMONIC_LABELS.length; count++) {
+            HARMONIC_LABELS[count] = count >= 2 ? ("Yes (" + count + ")") : "No";
+        }
+    }
+
+    private final float sampleRate;
+    private final PipelineConfig config;
+    private final Listener listener;
+    private final SpectralPeakProcessor spectralPeaks;
+    private final AudioEvent spectralEvent;
+    private final ConstantQ constantQ;
+    private final int cqtFftLen;
+    private final AnalysisContext ctx;
+    private final GuitarPitchDetector pitchDetector;
+    private volatile AnalysisPlan plan;
+    private volatile int[] tuning = AnalysisPlan.STANDARD_TUNING;
+    private float lastPitch = -1;
+    private float lastProbability = 0;
+    private boolean primed; // after the first dispatcher buffer, each one brings only a hop of new samples
+    private LatencyProbe probe;
+
+    AnalysisPipeline(float sampleRate, double a4RefHz, Listener listener) {
+        this(sampleRate, a4RefHz, PipelineConfig.DEFAULT, listener);
+    }
+
+    AnalysisPipeline(float sampleRate, double a4RefHz, PipelineConfig config, Listener listener) {
+        this.sampleRate = sampleRate;
+        this.config = config;
+        this.listener = listener;
+        // The peak processor's phase vocoder assumes it is called exactly once per spectral hop
+        this.spectralPeaks = new SpectralPeakProcessor(config.spectralWindow,
+                config.spectralWindow - config.spectralHop, (int) sampleRate);
+        this.spectralEvent = new AudioEvent(new TarsosDSPAudioFormat(sampleRate, 16, 1, true, false));
+        // Initialize Constant-Q for robust chord/chroma detection
+        // Cover guitar range and a few harmonics: ~55Hz (A1) to 3520Hz (A7)
+        this.constantQ = new ConstantQ(sampleRate, 55f, 3520f, 36f);
+        this.cqtFftLen = constantQ.getFFTlength();
+        this.ctx = new AnalysisContext(config, cqtFftLen, constantQ.getFreqencies().length);
+        this.plan = AnalysisPlan.create(a4RefHz, constantQ.getFreqencies(), AnalysisPlan.STANDARD_TUNING);
+        double[] range = searchRange(plan, tuning);
+        this.pitchDetector = new GuitarPitchDetector(sampleRate, config.pitchWindow, range[0], range[1]);
+    }
+
+    /**
+     * Registers the pitch processor and the stage scheduler on the dispatcher, which must deliver
+     * {@code config.pitchWindow} samples with {@link PipelineConfig#pitchOverlap()} overlap.
+     */
+    void attach(AudioDispatcher dispatcher) {
+        dispatcher.addAudioProcessor(new AudioProcessor() {
+            @Override
+            public boolean process(AudioEvent audioEvent) {
+                PitchDetectionResult result = pitchDetector.getPitch(audioEvent.getFloatBuffer());
+                lastPitch = result.getPitch();
+                lastProbability = result.getProbability();
+                if (probe != null) probe.mark(LatencyProbe.Stage.YIN);
+                processHop(audioEvent.getFloatBuffer(), audioEvent.getTimeStamp());
+                return true;
+            }
+            @Override
+            public void processingFinished() { }
+        });
+    }
+
+    /** Optional per-stage latency instrumentation; set before the dispatcher starts. */
+    void setLatencyProbe(LatencyProbe probe) {
+        this.probe = probe;
+    }
+
+    /** Rebuilds the lookup tables for a new A4 on the calling thread, then swaps them in. */
+    void setA4RefHz(double a4RefHz) {
+        if (a4RefHz == plan.a4RefHz) return;
+        plan = AnalysisPlan.create(a4RefHz, constantQ.getFreqencies(), AnalysisPlan.STANDARD_TUNING);
+        double[] range = searchRange(plan, tuning);
+        pitchDetector.setRange(range[0], range[1]);
+    }
+
+    /**
+     * Open strings (MIDI notes) of the instrument being played, standard guitar by default.
+     * The pitch search looks at what they can play first.
+     */
+    void setTuning(int[] tuning) {
+        this.tuning = tuning.length > 0 ? tuning.clone() : AnalysisPlan.STANDARD_TUNING;
+        double[] range = searchRange(plan, this.tuning);
+        pitchDetector.setRange(range[0], range[1]);
+    }
+
+    /** Where the pitch search looks first: what the tuning can play, with the margin either side. */
+    static double[] searchRange(AnalysisPlan plan, int[] tuning) {
+        double[] range = GuitarPitchDetector.playableRange(plan, tuning, FRETS);
+        return new double[]{range[0] / RANGE_MARGIN, range[1] * RANGE_MARGIN};
+    }
+
+    AnalysisPlan plan() {
+        return plan;
+    }
+
+    float sampleRate() {
+        return sampleRate;
+    }
+
+    PipelineConfig config() {
+        return config;
+    }
+
+    /** Samples of audio the Constant-Q chroma stage looks at. */
+    int chromaWindowLength() {
+        return cqtFftLen;
+    }
+
+    /**
+     * Handles one dispatcher buffer: feeds the new samples to the stage windows, runs whichever
+     * stages are due and emits a frame with the latest result of every stage.
+     */
+    void processHop(float[] buffer, double timeStamp) {
+        int fresh = Math.min(buffer.length, primed ? config.pitchHop : buffer.length);
+        primed = true;
+        int off = buffer.length - fresh;
+        boolean spectralDue = ctx.spectralWindow.push(buffer, off, fresh);
+        boolean chromaDue = ctx.chromaWindow.push(buffer, off, fresh);
+        AnalysisPlan plan = this.plan;
+
+        if (spectralDue) {
+            ctx.spectralWindow.copyChronological(ctx.spectralInput);
+            analyzeSpectrum(ctx.spectralInput);
+            if (probe != null) probe.mark(LatencyProbe.Stage.SPECTRAL);
+        }
+        if (chromaDue) {
+            ctx.chromaWindow.copyNewestFirst(ctx.cqtInput);
+            // Compute Constant-Q chroma for robust chord detection
+            double[] chroma = computeChroma(ctx.cqtInput, plan);
+            System.arraycopy(chroma, 0, ctx.frame.chroma, 0, chroma.length);
+            // Smooth chroma over recent frames for stability
+            ctx.pushChroma(chroma);
+            // Chord guess from chroma template matching
+            ctx.frame.chord = guessChordFromChroma(ctx.averageChroma());
+            if (probe != null) probe.mark(LatencyProbe.Stage.CHROMA);
+        }
+        if (spectralDue || chromaDue) {
+            updateNotes(plan, spectralDue);
+        }
+
+        AnalysisFrame out = ctx.frame;
+        out.timeStamp = timeStamp;
+        out.captureNanos = probe != null ? probe.captureNanos() : 0;
+        out.pitchHz = lastPitch;
+        out.probability = lastProbability;
+        listener.onFrame(out);
+    }
+
+    /** Spectral stage: magnitudes and peaks of a window given oldest sample first. */
+    void analyzeSpectrum(float[] window) {
+        spectralEvent.setFloatBuffer(window);
+        spectralPeaks.process(spectralEvent);
+        float[] mags = spectralPeaks.getMagnitudes();
+        float[] freqs = spectralPeaks.getFrequencyEstimates();
+        SpectralPeakPicker peaks = ctx.peaks;
+        int peakCount = peaks.pick(mags, freqs);
+
+        AnalysisFrame out = ctx.frame;
+        System.arraycopy(mags, 0, out.magnitudes, 0, Math.min(mags.length, out.magnitudes.length));
+        out.peakCount = peakCount;
+        System.arraycopy(peaks.peakBins, 0, out.peakBins, 0, peakCount);
+        System.arraycopy(peaks.peakHz, 0, out.peakHz, 0, peakCount);
+    }
+
+    /** Labels the strongest chroma pitch classes with octaves taken from the latest spectral peaks. */
+    private void updateNotes(AnalysisPlan plan, boolean spectralRan) {
+        SpectralPeakPicker peaks = ctx.peaks;
+        int peakCount = peaks.peakCount();
+        int[] topPcs = ctx.topPitchClasses;
+        int pcCount = topPitchClasses(ctx.avgChroma, topPcs);
+
+        AnalysisFrame out = ctx.frame;
+        for (int i = 0; i < pcCount; i++) {
+            // Estimate an octave for labeling using the strongest peak near that pc
+            double f = findPeakNearPitchClass(plan, peaks.peakHz, peaks.peakMags, peakCount, topPcs[i]);
+            int midi = plan.hzToMidi(f > 0 ? f : plan.a4RefHz);
+            out.noteMidi[i] = midi;
+            out.noteHz[i] = f;
+            out.noteNames[i] = noteLabel(midi);
+        }
+        out.noteCount = pcCount;
+
+        // Gesture estimation on main note history, sampled at the spectral hop
+        if (spectralRan) {
+            if (pcCount > 0) {
+                updatePitchHistory(out.noteHz[0]);
+            }
+            out.gesture = estimateGesture();
+        }
+
+        // Harmonics presence relative to dominant note
+        out.harmonics = estimateHarmonics(out.noteHz, pcCount);
+    }
+
+    static String midiToNoteName(int midi) {
+        int idx = Math.floorMod(midi, 12);
+        return NOTE_NAMES[idx];
+    }
+
+    /** Note name with octave, e.g. "E2". */
+    static String noteLabel(int midi) {
+        if (midi >= 0 && midi < NOTE_LABELS.length) return NOTE_LABELS[midi];
+        return midiToNoteName(midi) + ((midi / 12) - 1);
+    }
+
+    /**
+     * Constant-Q chroma of a window given newest sample first, normalized to [0,1]; the returned
+     * array is reused. Tarsos anchors every kernel at index 0, so newest-first ordering makes each
+     * band look at its own most recent window length rather than the oldest audio.
+     */
+    double[] computeChroma(float[] window) {
+        return computeChroma(window, plan);
+    }
+
+    private double[] computeChroma(float[] window, AnalysisPlan plan) {
+        double[] chroma = ctx.chroma;
+        java.util.Arrays.fill(chroma, 0);
+        if (window == null) return chroma;
+        float[] buf = ctx.cqtInput;
+        if (window != buf) {
+            // Shorter windows are zero-padded
+            int copy = Math.min(window.length, cqtFftLen);
+            System.arraycopy(window, 0, buf, 0, copy);
+            java.util.Arrays.fill(buf, copy, cqtFftLen, 0f);
+        }
+        constantQ.calculateMagintudes(buf);
+        float[] mags = constantQ.getMagnitudes();
+        int[] binPc = plan.binPitchClass;
+        float[] weighted = ctx.cqtWeighted;
+        int bins = Math.min(mags.length, weighted.length);
+        // Log compression for robustness, low-frequency weight from the plan
+        DspKernels.INSTANCE.log1pScaled(mags, plan.binWeight, weighted, bins);
+        for (int i = 0; i < bins; i++) {
+            int pc = binPc[i];
+            if (pc >= 0) chroma[pc] += weighted[i];
+        }
+        // Normalize
+        double max = 0;
+        for (double v : chroma) max = Math.max(max, v);
+        if (max > 0) for (int i = 0; i < 12; i++) chroma[i] /= max;
+        return chroma;
+    }
+
+    /** Fills {@code out} with the strongest pitch classes, strongest first; ties keep ascending order. */
+    private static int topPitchClasses(double[] chroma, int[] out) {
+        int k = Math.min(out.length, 12);
+        int used = 0;
+        for (int n = 0; n < k; n++) {
+            int best = -1;
+            for (int i = 0; i < 12; i++) {
+                if ((used & (1 << i)) != 0) continue;
+                if (best < 0 || chroma[i] > chroma[best]) best = i;
+            }
+            used |= 1 << best;
+            out[n] = best;
+        }
+        return k;
+    }
+
+    private static double findPeakNearPitchClass(AnalysisPlan plan, float[] peakHz, float[] peakMags, int count, int pc) {
+        double bestHz = -1; double bestMag = -1e9;
+        for (int i = 0; i < count; i++) {
+            int midi = plan.hzToMidi(peakHz[i]);
+            if (Math.floorMod(midi, 12) == pc) {
+                if (peakMags[i] > bestMag) { bestMag = peakMags[i]; bestHz = peakHz[i]; }
+            }
+        }
+        return bestHz;
+    }
+
+    static String guessChordFromChroma(double[] chroma) {
+        double total = 0; for (double v : chroma) total += v;
+        if (total <= 1e-6) return "--";
+
+        double bestScore = -1e9; String bestLabel = "--";
+
+        // thresholds and weights
+        double thr3Rel = 0.35;   // require at least 35% of max(root,fifth) on the third to call maj/min
+        double thr7Rel = 0.35;   // require at least 35% on the seventh to call 7/m7
+        double lambdaComplex = 0.10; // complexity penalty per extra interval beyond root+fifth
+
+        for (int root = 0; root < 12; root++) {
+            double R = chroma[root];
+            double E5 = chroma[(root + 7) % 12];
+            double EM3 = chroma[(root + 4) % 12];
+            double Em3 = chroma[(root + 3) % 12];
+            double E7 = chroma[(root + 10) % 12];
+
+            double base = Math.max(1e-6, Math.max(R, E5));
+            boolean hasMaj3 = EM3 >= thr3Rel * base;
+            boolean hasMin3 = Em3 >= thr3Rel * base;
+            boolean has7 = E7 >= thr7Rel * base;
+
+            // POWER (5)
+            double powerExplained = R + E5;
+            double powerPurity = powerExplained / total;
+            double powerScore = (1.00 * R + 0.95 * E5) * (0.6 + 0.4 * powerPurity);
+            // small penalty if strong third present (not a true power chord)
+            double thirdLeak = Math.max(EM3, Em3);
+            powerScore -= 0.05 * Math.max(0, thirdLeak - 0.25 * base);
+
+            // MAJOR
+            double majorScore = -1e9;
+            if (hasMaj3) {
+                double explained = R + E5 + EM3;
+                double purity = explained / total;
+                majorScore = (1.0 * R + 0.85 * EM3 + 0.90 * E5) * (0.6 + 0.4 * purity)
+                        - lambdaComplex * (3 - 2);
+            }
+
+            // MINOR
+            double minorScore = -1e9;
+            if (hasMin3) {
+                double explained = R + E5 + Em3;
+                double purity = explained / total;
+                minorScore = (1.0 * R + 0.85 * Em3 + 0.90 * E5) * (0.6 + 0.4 * purity)
+                        - lambdaComplex * (3 - 2);
+            }
+
+            // DOM7
+            double dom7Score = -1e9;
+            if (hasMaj3 && has7) {
+                double explained = R + E5 + EM3 + E7;
+                double purity = explained / total;
+                dom7Score = (1.0 * R + 0.80 * EM3 + 0.90 * E5 + 0.60 * E7) * (0.6 + 0.4 * purity)
+                        - lambdaComplex * (4 - 2);
+            }
+
+            // MIN7
+            double min7Score = -1e9;
+            if (hasMin3 && has7) {
+                double explained = R + E5 + Em3 + E7;
+                double purity = explained / total;
+                min7Score = (1.0 * R + 0.80 * Em3 + 0.90 * E5 + 0.60 * E7) * (0.6 + 0.4 * purity)
+                        - lambdaComplex * (4 - 2);
+            }
+
+            // Choose best for this root with a bias toward simpler models when close in score
+            // Order matches CHORD_LABELS: power, major, minor, dom7, min7
+            int bestIdx = 0; double bestLocal = powerScore;
+            if (majorScore > bestLocal) { bestLocal = majorScore; bestIdx = 1; }
+            if (minorScore > bestLocal) { bestLocal = minorScore; bestIdx = 2; }
+            if (dom7Score > bestLocal) { bestLocal = dom7Score; bestIdx = 3; }
+            if (min7Score > bestLocal) { bestLocal = min7Score; bestIdx = 4; }
+            // If best is a 7th but only marginally better than power, prefer power
+            if ((bestIdx == 3 || bestIdx == 4) && powerScore > -1e8 && (bestLocal - powerScore) < 0.12) {
+                bestIdx = 0; bestLocal = powerScore;
+            }
+
+            if (bestLocal > bestScore) { bestScore = bestLocal; bestLabel = CHORD_LABELS[root][bestIdx]; }
+        }
+
+        if (bestScore < 0.20) return "Uncertain";
+        return bestLabel;
+    }
+
+    void updatePitchHistory(double hz) {
+        if (hz <= 0) return;
+        // One log per hop; the gesture estimate then works on differences only
+        ctx.pushPitchCents(AnalysisPlan.cents(hz, 1.0));
+    }
+
+    String estimateGesture() {
+        int n = ctx.pitchCount();
+        if (n < 6) return "--";
+        // Cents relative to first value
+        double base = ctx.pitchCentsAt(0);
+        double[] cents = ctx.cents;
+        for (int i = 0; i < n; i++) {
+            cents[i] = ctx.pitchCentsAt(i) - base;
+        }
+        double total = cents[n - 1] - cents[0];
+        double absDiffSum = 0.0;
+        int signChanges = 0;
+        double prevDiff = 0.0;
+        for (int i = 1; i < n; i++) {
+            double diff = cents[i] - cents[i-1];
+            absDiffSum += Math.abs(diff);
+            if (i > 1 && Math.signum(diff) != Math.signum(prevDiff)) signChanges++;
+            prevDiff = diff;
+        }
+        double range = Math.abs(total);
+        double avgStep = absDiffSum / (n - 1);
+        if (range > 150 && signChanges < 2) return total > 0 ? "Slide Up" : "Slide Down";
+        if (range > 25 && range <= 150 && signChanges < 3) return total > 0 ? "Bend Up" : "Bend Down";
+        if (signChanges > 6 && avgStep < 30) return "Vibrato";
+        return "Stable";
+    }
+
+    static String estimateHarmonics(double[] noteHz, int count) {
+        if (count == 0) return "--";
+        double f0 = noteHz[0];
+        int harmonics = 0;
+        for (int i = 1; i < count; i++) {
+            double ratio = noteHz[i] / f0;
+            double nearest = Math.round(ratio);
+            if (nearest >= 2 && Math.abs(ratio - nearest) < 0.05) harmonics++;
+        }
+        return harmonics < HARMONIC_LABELS.length ? HARMONIC_LABELS[harmonics] : ("Yes (" + harmonics + ")");
+    }
+}
@@ -0,0 +1,82 @@
+package org.openjfx;
+
+/**
+ * Immutable lookup tables derived from the A4 reference: Constant-Q bin to pitch-class map and
+ * per-bin weights, MIDI note boundaries and frequencies, and tuner string targets.
+ * A new plan is built off the audio thread whenever A4 changes and swapped in as a whole,
+ * so the per-hop path only does table lookups.
+ */
+final class AnalysisPlan {
+
+    private static final double LOG2 = Math.log(2);
+
+    /** Standard guitar tuning, low E to high E, as MIDI notes. */
+    static final int[] STANDARD_TUNING = {40, 45, 50, 55, 59, 64};
+
+    final double a4RefHz;
+    /** Pitch class per Constant-Q bin, or -1 for bins outside the chroma range. */
+    final int[] binPitchClass;
+    /** Low-frequency de-emphasis per Constant-Q bin; 0 for bins outside the chroma range. */
+    final float[] binWeight;
+    /** Target frequency per tuner string, in the order the string MIDI notes were given. */
+    final double[] stringHz;
+
+    private final double[] midiHz = new double[128];
+    // midiLowerEdge[m] is the lowest frequency that rounds to MIDI note m
+    private final double[] midiLowerEdge = new double[129];
+
+    private AnalysisPlan(double a4RefHz, float[] cqtFrequencies, int[] stringMidis) {
+        this.a4RefHz = a4RefHz;
+        for (int m = 0; m < midiHz.length; m++) {
+            midiHz[m] = a4RefHz * Math.pow(2.0, (m - 69) / 12.0);
+        }
+        for (int m = 0; m < midiLowerEdge.length; m++) {
+            midiLowerEdge[m] = a4RefHz * Math.pow(2.0, (m - 0.5 - 69) / 12.0);
+        }
+
+        int bins = cqtFrequencies != null ? cqtFrequencies.length : 0;
+        binPitchClass = new int[bins];
+        binWeight = new float[bins];
+        for (int i = 0; i < bins; i++) {
+            float f = cqtFrequencies[i];
+            if (f < 55 || f > 4000) {
+                binPitchClass[i] = -1;
+                continue;
+            }
+            binPitchClass[i] = Math.floorMod(hzToMidi(f), 12);
+            // De-emphasize low freqs a bit to reduce bass dominance
+            binWeight[i] = (float) (1.0 / Math.sqrt(Math.max(1.0, f / 110.0)));
+        }
+
+        stringHz = new double[stringMidis.length];
+        for (int s = 0; s < stringMidis.length; s++) {
+            stringHz[s] = midiToHz(stringMidis[s]);
+        }
+    }
+
+    static AnalysisPlan create(double a4RefHz, float[] cqtFrequencies, int[] stringMidis) {
+        return new AnalysisPlan(a4RefHz, cqtFrequencies, stringMidis);
+    }
+
+    /** Nearest MIDI note for the frequency, equivalent to rounding 69 + 12*log2(hz/A4). */
+    int hzToMidi(double hz) {
+        if (!(hz >= midiLowerEdge[0]) || hz >= midiLowerEdge[128]) {
+            return (int) Math.round(69 + 12 * (Math.log(hz / a4RefHz) / LOG2));
+        }
+        int lo = 0, hi = 127;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (hz >= midiLowerEdge[mid]) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    double midiToHz(int midi) {
+        if (midi >= 0 && midi < midiHz.length) return midiHz[midi];
+        return a4RefHz * Math.pow(2.0, (midi - 69) / 12.0);
+    }
+
+    static double cents(double hz, double referenceHz) {
+        return 1200.0 * Math.log(hz / referenceHz) / LOG2;
+    }
+}
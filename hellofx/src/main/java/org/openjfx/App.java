@@ -7,6 +7,8 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * JavaFX App
@@ -14,17 +16,47 @@ import java.io.IOException;
 public class App extends Application {
 
     private static Scene scene;
+    // Views are loaded once and kept, so switching back keeps their state (and running detection)
+    private static final Map<String, Parent> VIEWS = new HashMap<>();
+    private static SongsterrService songsterr;
+    private static ScoreTimeline followedScore;
 
     @Override
     public void start(Stage stage) throws IOException {
-        scene = new Scene(loadFXML("primary"), 700, 450);
+        scene = new Scene(view("primary"), 700, 450);
         stage.setScene(scene);
         stage.setTitle("Guitar Note Detector (TarsosDSP)");
         stage.show();
     }
 
     static void setRoot(String fxml) throws IOException {
-        scene.setRoot(loadFXML(fxml));
+        scene.setRoot(view(fxml));
+    }
+
+    /** Songsterr client shared by every view for the lifetime of the app; FX thread only. */
+    static SongsterrService songsterr() {
+        if (songsterr == null) {
+            songsterr = new SongsterrService(SongsterrDiskCache.openDefault(), SongIndex.openDefault());
+        }
+        return songsterr;
+    }
+
+    /** Tab the detector follows the player through, chosen in the tab view; FX thread only. */
+    static ScoreTimeline followedScore() {
+        return followedScore;
+    }
+
+    static void follow(ScoreTimeline score) {
+        followedScore = score;
+    }
+
+    private static Parent view(String fxml) throws IOException {
+        Parent root = VIEWS.get(fxml);
+        if (root == null) {
+            root = loadFXML(fxml);
+            VIEWS.put(fxml, root);
+        }
+        return root;
     }
 
     private static Parent loadFXML(String fxml) throws IOException {
@@ -32,7 +64,15 @@ public class App extends Application {
         return fxmlLoader.load();
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            BatchAnalyzer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && "--export".equals(args[0])) {
+            BulkTabExporter.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch();
     }
 
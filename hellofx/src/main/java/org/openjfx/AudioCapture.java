@@ -0,0 +1,147 @@
+package org.openjfx;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.TargetDataLine;
+
+/**
+ * Dedicated capture thread that drains a {@link TargetDataLine} into one {@link PcmRingBuffer}
+ * per channel and does nothing else, so analysis hiccups no longer overrun the line itself.
+ * Multi-channel lines (e.g. a hexaphonic pickup) are split into independent mono streams.
+ */
+final class AudioCapture implements Runnable {
+
+    private final String name;
+    private final TargetDataLine line;
+    private final AudioFormat channelFormat;
+    private final PcmRingBuffer[] rings;
+    private final byte[] chunk;
+    private final byte[][] channelChunks;
+    private volatile boolean running;
+    private volatile long lineOverruns;
+    private Thread thread;
+
+    private AudioCapture(String name, TargetDataLine line, int ringBytes, int chunkBytes) {
+        this.name = name;
+        this.line = line;
+        AudioFormat format = line.getFormat();
+        int channels = format.getChannels();
+        int sampleBytes = format.getFrameSize() / channels;
+        this.channelFormat = new AudioFormat(format.getEncoding(), format.getSampleRate(), format.getSampleSizeInBits(),
+                1, sampleBytes, format.getFrameRate(), format.isBigEndian());
+        this.rings = new PcmRingBuffer[channels];
+        for (int c = 0; c < channels; c++) {
+            rings[c] = new PcmRingBuffer(ringBytes, sampleBytes);
+        }
+        this.chunk = new byte[chunkBytes * channels];
+        this.channelChunks = channels > 1 ? new byte[channels][chunkBytes] : null;
+    }
+
+    /**
+     * Opens the line on the given mixer, or the system default when mixer is null.
+     * lineBufferBytes is the driver-side buffer for all channels; ringBytes and chunkBytes are
+     * per channel: the capture-to-analysis buffer and the hand-over granularity.
+     */
+    static AudioCapture open(String name, Mixer mixer, AudioFormat format, int lineBufferBytes, int ringBytes, int chunkBytes)
+            throws LineUnavailableException {
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
+        TargetDataLine line = mixer != null
+                ? (TargetDataLine) mixer.getLine(info)
+                : (TargetDataLine) AudioSystem.getLine(info);
+        line.open(format, lineBufferBytes);
+        int sampleBytes = format.getFrameSize() / format.getChannels();
+        return new AudioCapture(name, line, ringBytes, chunkBytes - chunkBytes % sampleBytes);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int channels() {
+        return rings.length;
+    }
+
+    PcmRingBuffer ring(int channel) {
+        return rings[channel];
+    }
+
+    /** Format of each per-channel ring: the line format reduced to one channel. */
+    AudioFormat channelFormat() {
+        return channelFormat;
+    }
+
+    void start() {
+        running = true;
+        line.start();
+        thread = new Thread(this, "Audio Capture " + name);
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        int lineBuffer = line.getBufferSize();
+        while (running) {
+            // A full driver buffer means the line has likely dropped audio before we got here
+            if (line.available() >= lineBuffer) {
+                lineOverruns = lineOverruns + 1;
+            }
+            int n = line.read(chunk, 0, chunk.length);
+            long now = System.nanoTime();
+            if (n <= 0) {
+                if (!line.isOpen()) break;
+                continue;
+            }
+            if (channelChunks == null) {
+                rings[0].write(chunk, 0, n, now);
+            } else {
+                deinterleave(n, now);
+            }
+        }
+        for (PcmRingBuffer ring : rings) ring.close();
+    }
+
+    private void deinterleave(int n, long captureNanos) {
+        int channels = rings.length;
+        int sampleBytes = channelFormat.getFrameSize();
+        int frameSize = sampleBytes * channels;
+        int frames = n / frameSize;
+        for (int c = 0; c < channels; c++) {
+            byte[] out = channelChunks[c];
+            int src = c * sampleBytes;
+            int dst = 0;
+            for (int f = 0; f < frames; f++, src += frameSize) {
+                for (int b = 0; b < sampleBytes; b++) out[dst++] = chunk[src + b];
+            }
+            rings[c].write(out, 0, dst, captureNanos);
+        }
+    }
+
+    void stop() {
+        running = false;
+        line.stop();
+        line.flush();
+        line.close();
+        for (PcmRingBuffer ring : rings) ring.close();
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            try { t.join(500); } catch (InterruptedException ignored) { Thread.currentThread().interrupt(); }
+        }
+    }
+
+    long lineOverruns() {
+        return lineOverruns;
+    }
+
+    /** Peak fill of the fullest channel ring, as a fraction of its capacity. */
+    double peakFillRatio() {
+        double peak = 0;
+        for (PcmRingBuffer ring : rings) peak = Math.max(peak, ring.peakFill() / (double) ring.capacity());
+        return peak;
+    }
+}
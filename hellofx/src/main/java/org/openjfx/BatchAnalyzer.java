@@ -0,0 +1,242 @@
+package org.openjfx;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that runs {@link AnalysisPipeline} over recorded WAV/AIFF files as fast as
+ * the CPU allows, one file per fork-join task, and writes per-frame results to CSV or JSON.
+ *
+ * <pre>
+ * java -cp ... org.openjfx.BatchAnalyzer [--format csv|json] [--out DIR] [--threads N] [--a4 HZ] FILE|DIR...
+ * </pre>
+ * Stage windows and hops follow {@link PipelineConfig#fromSystemProperties()}.
+ */
+public final class BatchAnalyzer {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String format;
+    private final Path outDir;
+    private final double a4RefHz;
+    private final PipelineConfig config = PipelineConfig.fromSystemProperties();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final DoubleAdder audioSeconds = new DoubleAdder();
+
+    private BatchAnalyzer(String format, Path outDir, double a4RefHz) {
+        this.format = format;
+        this.outDir = outDir;
+        this.a4RefHz = a4RefHz;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String format = "csv";
+        Path outDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double a4 = 440.0;
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": format = args[++i].toLowerCase(Locale.ROOT); break;
+                case "--out": outDir = Paths.get(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--a4": a4 = Double.parseDouble(args[++i]); break;
+                default: inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty() || !(format.equals("csv") || format.equals("json"))) {
+            System.err.println("Usage: BatchAnalyzer [--format csv|json] [--out DIR] [--threads N] [--a4 HZ] FILE|DIR...");
+            System.exit(2);
+        }
+
+        List<File> files = collectAudioFiles(inputs);
+        if (outDir != null) Files.createDirectories(outDir);
+        BatchAnalyzer analyzer = new BatchAnalyzer(format, outDir, a4);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            pool.invoke(analyzer.new FileBatch(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        double audio = analyzer.audioSeconds.sum();
+        System.out.println(String.format(Locale.ROOT,
+                "[Batch] files=%d failed=%d audio=%.1fs wall=%.1fs speed=%.1fx real time",
+                files.size(), analyzer.failures.get(), audio, wallSeconds, wallSeconds > 0 ? audio / wallSeconds : 0));
+        if (analyzer.failures.get() > 0) System.exit(1);
+    }
+
+    private static List<File> collectAudioFiles(List<String> inputs) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(Files::isRegularFile)
+                            .filter(BatchAnalyzer::isAudioFile)
+                            .sorted()
+                            .map(Path::toFile)
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path.toFile());
+            }
+        }
+        return files;
+    }
+
+    private static boolean isAudioFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".wav") || name.endsWith(".aif") || name.endsWith(".aiff");
+    }
+
+    /** Splits the file list until each task holds a single file. */
+    private final class FileBatch extends RecursiveAction {
+        private final List<File> files;
+        private final int from;
+        private final int to;
+
+        FileBatch(List<File> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) analyzeFile(files.get(from));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FileBatch(files, from, mid), new FileBatch(files, mid, to));
+        }
+    }
+
+    private void analyzeFile(File file) {
+        Path target = outputFor(file);
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(file);
+             AudioInputStream mono = toMono16(source);
+             FrameWriter writer = "json".equals(format) ? new JsonFrameWriter(target) : new CsvFrameWriter(target)) {
+            float sampleRate = mono.getFormat().getSampleRate();
+            AudioDispatcher dispatcher = new AudioDispatcher(new JVMAudioInputStream(mono),
+                    config.pitchWindow, config.pitchOverlap());
+            AnalysisPipeline pipeline = new AnalysisPipeline(sampleRate, a4RefHz, config, frame -> {
+                try {
+                    writer.write(frame);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            pipeline.attach(dispatcher);
+            // Runs on the fork-join worker; the file is consumed as fast as the chain allows.
+            dispatcher.run();
+            if (source.getFrameLength() > 0) {
+                audioSeconds.add(source.getFrameLength() / source.getFormat().getFrameRate());
+            }
+            System.out.println("[Batch] " + file + " -> " + target);
+        } catch (Exception ex) {
+            failures.incrementAndGet();
+            System.err.println("[Batch] " + file + " failed: " + ex.getMessage());
+        }
+    }
+
+    private static AudioInputStream toMono16(AudioInputStream source) {
+        AudioFormat src = source.getFormat();
+        AudioFormat mono = new AudioFormat(src.getSampleRate(), 16, 1, true, false);
+        if (src.matches(mono)) return source;
+        if (!AudioSystem.isConversionSupported(mono, src)) {
+            throw new IllegalArgumentException("Unsupported audio format: " + src);
+        }
+        return AudioSystem.getAudioInputStream(mono, source);
+    }
+
+    private Path outputFor(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        Path dir = outDir != null ? outDir : file.getAbsoluteFile().toPath().getParent();
+        return dir.resolve(base + ".analysis." + format);
+    }
+
+    private interface FrameWriter extends Closeable {
+        void write(AnalysisFrame frame) throws IOException;
+    }
+
+    private static final class CsvFrameWriter implements FrameWriter {
+        private final BufferedWriter out;
+
+        CsvFrameWriter(Path path) throws IOException {
+            out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            out.write("time_s,pitch_hz,confidence,notes,chord,gesture,harmonics\n");
+        }
+
+        @Override
+        public void write(AnalysisFrame r) throws IOException {
+            out.write(String.format(Locale.ROOT, "%.4f,%.2f,%.3f,%s,%s,%s,%s\n",
+                    r.timeStamp, r.pitchHz, r.probability, r.noteCount == 0 ? "" : r.notesLabel(" "), r.chord, r.gesture, r.harmonics));
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class JsonFrameWriter implements FrameWriter {
+        private final JsonGenerator gen;
+
+        JsonFrameWriter(Path path) throws IOException {
+            gen = JSON.createGenerator(path.toFile(), JsonEncoding.UTF8);
+            gen.writeStartArray();
+        }
+
+        @Override
+        public void write(AnalysisFrame r) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("time", r.timeStamp);
+            gen.writeNumberField("pitchHz", r.pitchHz);
+            gen.writeNumberField("confidence", r.probability);
+            gen.writeArrayFieldStart("notes");
+            for (int i = 0; i < r.noteCount; i++) gen.writeString(r.noteNames[i]);
+            gen.writeEndArray();
+            gen.writeStringField("chord", r.chord);
+            gen.writeStringField("gesture", r.gesture);
+            gen.writeStringField("harmonics", r.harmonics);
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.writeEndArray();
+            gen.close();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.openjfx;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless entry point that runs a setlist through search, song details and part download and
+ * archives each part's raw JSON under the output directory, one folder per song.
+ *
+ * <pre>
+ * java -cp ... org.openjfx.BulkTabExporter [--out DIR] [--concurrency N] [--rate PER_SECOND] [--all-tracks] SETLIST
+ * </pre>
+ * The setlist has one "Artist - Title" per line; blank lines and lines starting with # are
+ * skipped. Finished entries are appended to DIR/progress.tsv and skipped when the export is run
+ * again. Endpoints follow {@link SongsterrEndpoints#fromSystemProperties()}.
+ * Each entry runs on its own virtual thread when the JDK has them (21+), otherwise on a plain
+ * thread; either way at most N entries are active and requests start at most PER_SECOND a second.
+ */
+public final class BulkTabExporter {
+
+    private static final String PROGRESS_FILE = "progress.tsv";
+
+    private final SongsterrService songsterr;
+    private final Path outDir;
+    private final boolean allTracks;
+    private final Semaphore slots;
+    private final RequestPacer pacer;
+    private final BufferedWriter progress;
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger parts = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    private BulkTabExporter(SongsterrService songsterr, Path outDir, boolean allTracks, int concurrency,
+                            double ratePerSecond, BufferedWriter progress) {
+        this.songsterr = songsterr;
+        this.outDir = outDir;
+        this.allTracks = allTracks;
+        this.slots = new Semaphore(Math.max(1, concurrency));
+        this.pacer = new RequestPacer(ratePerSecond);
+        this.progress = progress;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path outDir = Paths.get("songsterr-export");
+        int concurrency = 16;
+        double rate = 10;
+        boolean allTracks = false;
+        String setlist = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out": outDir = Paths.get(args[++i]); break;
+                case "--concurrency": concurrency = Integer.parseInt(args[++i]); break;
+                case "--rate": rate = Double.parseDouble(args[++i]); break;
+                case "--all-tracks": allTracks = true; break;
+                default: setlist = args[i];
+            }
+        }
+        if (setlist == null) {
+            System.err.println("Usage: BulkTabExporter [--out DIR] [--concurrency N] [--rate PER_SECOND] [--all-tracks] SETLIST");
+            System.exit(2);
+        }
+
+        Files.createDirectories(outDir);
+        Path progressFile = outDir.resolve(PROGRESS_FILE);
+        Set<String> finished = readFinished(progressFile);
+        List<String> pending = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(setlist), StandardCharsets.UTF_8)) {
+            String entry = line.trim();
+            if (entry.isEmpty() || entry.startsWith("#") || finished.contains(entry)) continue;
+            pending.add(entry);
+        }
+        System.out.println("[Export] " + pending.size() + " to go, " + finished.size() + " already done, " + SongsterrEndpoints.fromSystemProperties());
+
+        ExecutorService tasks = newTaskExecutor();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "export-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        BulkTabExporter exporter;
+        try (BufferedWriter progress = Files.newBufferedWriter(progressFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            SongsterrService songsterr = new SongsterrService(SongsterrDiskCache.openDefault(), SongIndex.openDefault(),
+                    SongsterrEndpoints.fromSystemProperties(), tasks);
+            exporter = new BulkTabExporter(songsterr, outDir, allTracks, concurrency, rate, progress);
+            BulkTabExporter running = exporter;
+            reporter.scheduleAtFixedRate(() -> running.report(pending.size(), start), 5, 5, TimeUnit.SECONDS);
+            List<CompletableFuture<Void>> all = new ArrayList<>();
+            for (String entry : pending) {
+                all.add(CompletableFuture.runAsync(() -> running.export(entry), tasks));
+            }
+            CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            reporter.shutdownNow();
+            tasks.shutdown();
+        }
+        exporter.report(pending.size(), start);
+        if (exporter.failed.get() > 0) System.exit(1);
+    }
+
+    /** One setlist entry, start to finish, blocking; runs on its own (virtual) thread. */
+    private void export(String entry) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            String[] artistTitle = splitEntry(entry);
+            pacer.acquire();
+            List<SongItem> results = songsterr.search(artistTitle[0] + " " + artistTitle[1]).join();
+            SongItem song = pickSong(results, artistTitle[0], artistTitle[1]);
+            if (song == null) {
+                throw new IllegalStateException("no search results");
+            }
+            pacer.acquire();
+            SongDetails details = songsterr.songDetails(song).join();
+            Path songDir = outDir.resolve(SongsterrService.songSlug(song.artist(), song.title(), song.songId()));
+            int exported = 0;
+            for (TrackItem track : song.tracks()) {
+                SongTrackInfo info = details.trackForHash(track.hash());
+                if (info == null) continue;
+                Files.createDirectories(songDir);
+                pacer.acquire();
+                Path target = songDir.resolve(String.format(Locale.ROOT, "%02d-%s.json", track.index(), SongsterrService.slugify(track.name())));
+                bytes.addAndGet(songsterr.exportPart(details, info, target).join());
+                parts.incrementAndGet();
+                exported++;
+                if (!allTracks) break;
+            }
+            // Not recorded as finished, so a resumed run tries it again
+            if (exported == 0) {
+                throw new IllegalStateException("no track of songId " + song.songId() + " has a tab part");
+            }
+            recordFinished(entry, song.songId(), exported);
+            done.incrementAndGet();
+        } catch (Exception ex) {
+            failed.incrementAndGet();
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            System.err.println("[Export] \"" + entry + "\" failed: " + cause.getMessage());
+        } finally {
+            slots.release();
+        }
+    }
+
+    /** Exact artist and title match first, then title only, then the top hit. */
+    private static SongItem pickSong(List<SongItem> results, String artist, String title) {
+        if (results == null || results.isEmpty()) return null;
+        String wantedArtist = SongsterrService.normalizeTerm(artist);
+        String wantedTitle = SongsterrService.normalizeTerm(title);
+        SongItem titleMatch = null;
+        for (SongItem song : results) {
+            if (!SongsterrService.normalizeTerm(song.title()).equals(wantedTitle)) continue;
+            if (SongsterrService.normalizeTerm(song.artist()).equals(wantedArtist)) return song;
+            if (titleMatch == null) titleMatch = song;
+        }
+        return titleMatch != null ? titleMatch : results.get(0);
+    }
+
+    private static String[] splitEntry(String entry) {
+        int dash = entry.indexOf(" - ");
+        if (dash > 0) return new String[]{entry.substring(0, dash).trim(), entry.substring(dash + 3).trim()};
+        return new String[]{"", entry};
+    }
+
+    private synchronized void recordFinished(String entry, int songId, int exported) throws IOException {
+        progress.write(entry + "\t" + songId + "\t" + exported + "\n");
+        progress.flush();
+    }
+
+    private static Set<String> readFinished(Path progressFile) throws IOException {
+        Set<String> finished = new HashSet<>();
+        if (!Files.exists(progressFile)) return finished;
+        for (String line : Files.readAllLines(progressFile, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) finished.add(line.substring(0, tab));
+        }
+        return finished;
+    }
+
+    private void report(int total, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT,
+                "[Export] %d/%d done, %d failed, %d parts, %.1f MB in %.1fs: %.2f songs/s, %.2f parts/s, %.2f MB/s",
+                done.get(), total, failed.get(), parts.get(), bytes.get() / 1e6, seconds,
+                done.get() / seconds, parts.get() / seconds, bytes.get() / 1e6 / seconds));
+    }
+
+    /** Virtual thread per task where the JDK has them; found reflectively since we compile for 11. */
+    private static ExecutorService newTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger index = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "export-" + index.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Spaces request starts evenly at the given rate across all threads; 0 or less means no limit. */
+    private static final class RequestPacer {
+        private final long intervalNanos;
+        private long next;
+
+        RequestPacer(double perSecond) {
+            this.intervalNanos = perSecond > 0 ? (long) (1e9 / perSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) return;
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (next < now) next = now;
+                wait = next - now;
+                next += intervalNanos;
+            }
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.openjfx;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Recent behaviour of one tab CDN host: an EWMA of response latency, an EWMA failure rate and
+ * the p95 of the last {@link #WINDOW} latencies. Used to rank hosts and to decide how long to
+ * wait on one before hedging to the next.
+ */
+final class CdnHostHealth {
+
+    private static final int WINDOW = 32;
+    private static final double ALPHA = 0.2;
+    private static final long UNKNOWN_LATENCY_NANOS = 400_000_000L; // until the first response
+    private static final long MIN_HEDGE_NANOS = 50_000_000L;
+    private static final long MAX_HEDGE_NANOS = 2_000_000_000L;
+
+    final String host;
+    private final long[] recent = new long[WINDOW];
+    private int recentCount;
+    private int recentNext;
+    private double ewmaNanos = -1;
+    private double failureRate;
+    private long abandoned;
+
+    CdnHostHealth(String host) {
+        this.host = host;
+    }
+
+    synchronized void recordSuccess(long nanos) {
+        addLatency(nanos);
+        failureRate *= 1 - ALPHA;
+    }
+
+    /** Errors and non-200 answers; the time taken still counts towards the latency. */
+    synchronized void recordFailure(long nanos) {
+        addLatency(nanos);
+        failureRate = failureRate * (1 - ALPHA) + ALPHA;
+    }
+
+    /**
+     * A request cancelled after losing a hedge: all we know is that the host was at least this
+     * slow, so it only moves the estimate upwards.
+     */
+    synchronized void recordAbandoned(long nanos) {
+        abandoned++;
+        if (nanos > ewmaNanos) addLatency(nanos);
+    }
+
+    /** Lower is better: expected latency inflated by how often the host fails. */
+    synchronized double score() {
+        double latency = ewmaNanos < 0 ? UNKNOWN_LATENCY_NANOS : ewmaNanos;
+        return latency * (1 + 4 * failureRate);
+    }
+
+    /** How long a request to this host may run before a hedge goes to the next one. */
+    synchronized long hedgeDelayNanos() {
+        long p95 = recentCount == 0 ? UNKNOWN_LATENCY_NANOS : p95Nanos();
+        return Math.max(MIN_HEDGE_NANOS, Math.min(MAX_HEDGE_NANOS, p95));
+    }
+
+    /** Requests to this host cancelled because another host answered first. */
+    synchronized long abandoned() {
+        return abandoned;
+    }
+
+    synchronized long p95Nanos() {
+        if (recentCount == 0) return -1;
+        long[] sorted = Arrays.copyOf(recent, recentCount);
+        Arrays.sort(sorted);
+        return sorted[Math.min(recentCount - 1, (int) Math.ceil(0.95 * recentCount) - 1)];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%s ewma=%.0fms p95=%.0fms fail=%.2f abandoned=%d", host,
+                ewmaNanos / 1e6, p95Nanos() / 1e6, failureRate, abandoned);
+    }
+
+    private void addLatency(long nanos) {
+        ewmaNanos = ewmaNanos < 0 ? nanos : ewmaNanos * (1 - ALPHA) + nanos * ALPHA;
+        recent[recentNext] = nanos;
+        recentNext = (recentNext + 1) % WINDOW;
+        if (recentCount < WINDOW) recentCount++;
+    }
+}
@@ -0,0 +1,54 @@
+package org.openjfx;
+
+/**
+ * The per-frame array loops of the analysis path that gain from SIMD: the YIN difference
+ * function and the log compression of the Constant-Q magnitudes. This class is the scalar
+ * implementation and builds for the release 11 target; on JDK 17+ the {@code vector} build
+ * profile adds {@code VectorDspKernels}, which overrides them with {@code jdk.incubator.vector}
+ * code. {@link #INSTANCE} is the vector one when that class is present and the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, otherwise this one;
+ * {@code -Dnotedetect.scalarKernels=true} forces the scalar kernels.
+ * <p>
+ * Results match the scalar ones to a relative 2e-6 however long the window: the scalar
+ * {@link #squaredDistance} adds every square to a double, the vector one sums a bounded run of
+ * squares in float lanes before adding it to its double total.
+ */
+class DspKernels {
+
+    static final DspKernels SCALAR = new DspKernels();
+    static final DspKernels INSTANCE = load();
+
+    DspKernels() { }
+
+    private static DspKernels load() {
+        if (Boolean.getBoolean("notedetect.scalarKernels")) return SCALAR;
+        try {
+            return (DspKernels) Class.forName("org.openjfx.VectorDspKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // Built without the vector profile, or run without the incubator module
+            return SCALAR;
+        }
+    }
+
+    /** Short name for diagnostics, e.g. "scalar" or "vector 512-bit". */
+    String describe() {
+        return "scalar";
+    }
+
+    /** Sum of (x[a + i] - x[b + i])^2 for i in [0, length): the YIN difference function at lag b - a. */
+    double squaredDistance(float[] x, int a, int b, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            float delta = x[a + i] - x[b + i];
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    /** out[i] = log1p(in[i]) * weight[i] for i in [0, n). */
+    void log1pScaled(float[] in, float[] weight, float[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (float) Math.log1p(in[i]) * weight[i];
+        }
+    }
+}
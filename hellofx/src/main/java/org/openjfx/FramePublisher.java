@@ -0,0 +1,56 @@
+package org.openjfx;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer between one analysis thread and the FX thread. The producer copies
+ * each frame into its private back buffer and swaps it into the shared slot; the consumer takes
+ * whatever is newest when it renders. Frames replaced before the consumer saw them are counted
+ * as superseded instead of queueing up.
+ */
+final class FramePublisher {
+
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final AnalysisFrame[] buffers = new AnalysisFrame[3];
+    // index of the shared buffer, plus FRESH while it holds a frame the consumer has not taken
+    private final AtomicInteger shared = new AtomicInteger(1);
+    private int back = 0;   // producer only
+    private int front = 2;  // consumer only
+
+    private volatile long published;
+    private volatile long superseded;
+
+    FramePublisher(int bins, int maxPeaks, int maxNotes) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new AnalysisFrame(bins, maxPeaks, maxNotes);
+        }
+    }
+
+    /** Producer side: copies the frame and makes it the latest. Never blocks or allocates. */
+    void publish(AnalysisFrame frame) {
+        buffers[back].copyFrom(frame);
+        int previous = shared.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        // single writer, so plain read-modify-write of the volatile counters is safe
+        published = published + 1;
+        if ((previous & FRESH) != 0) superseded = superseded + 1;
+    }
+
+    /** Consumer side: the newest frame since the last call, or null if nothing new arrived. */
+    AnalysisFrame poll() {
+        if ((shared.get() & FRESH) == 0) return null;
+        int previous = shared.getAndSet(front);
+        front = previous & INDEX;
+        return buffers[front];
+    }
+
+    long published() {
+        return published;
+    }
+
+    long superseded() {
+        return superseded;
+    }
+}
@@ -0,0 +1,228 @@
+package org.openjfx;
+
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import be.tarsos.dsp.pitch.PitchDetector;
+
+/**
+ * TarsosDSP's YIN (same integration length, threshold and interpolation), but searching only
+ * the lags of the notes the instrument can play instead of every lag up to half the window.
+ * <p>
+ * A coarse pass runs YIN on the window decimated by {@link #DECIMATION}, which costs
+ * 1/DECIMATION^2 of the full difference function. Each coarse dip inside the playable range is
+ * then refined at the full rate over the few lags around it, in order of increasing lag, and the
+ * first to pass the threshold is the answer, as in the full search. The cumulative sum the YIN
+ * normalization needs is computed exactly at any lag from prefix sums, so refined values match
+ * the full search. When nothing in range passes, the dips at every other lag are refined the same
+ * way, which is what the full search would find; frames without any dip (silence, noise) are
+ * unpitched at the cost of the coarse pass.
+ * <p>
+ * Allocation-free; the returned result is reused.
+ */
+final class GuitarPitchDetector implements PitchDetector {
+
+    /** TarsosDSP's default, so pruned and full searches agree. */
+    private static final double THRESHOLD = 0.20;
+    static final int DECIMATION = 4;
+    // Coarse dips below this are refined; decimation smears a dip, so this is looser than THRESHOLD
+    private static final double COARSE_THRESHOLD = 0.5;
+
+    private final float sampleRate;
+    private final int windowSize;
+    private final DspKernels kernels;
+    private final float[] coarse;
+    private final double[] coarseCmndf;
+    private final double[] prefix;
+    private final double[] prefixSquares;
+    private final double[] difference;
+    private final double[] cumulative;
+    private final double[] cmndf;
+    private final PitchDetectionResult result = new PitchDetectionResult();
+    // Lags with exact values in difference/cumulative/cmndf
+    private int knownLo, knownHi;
+    // minLag << 32 | maxLag, swapped as one value so the audio thread never sees half a range
+    private volatile long lagRange;
+    private long fullSearches;
+
+    GuitarPitchDetector(float sampleRate, int windowSize, double minHz, double maxHz) {
+        this(sampleRate, windowSize, minHz, maxHz, DspKernels.INSTANCE);
+    }
+
+    GuitarPitchDetector(float sampleRate, int windowSize, double minHz, double maxHz, DspKernels kernels) {
+        this.sampleRate = sampleRate;
+        this.windowSize = windowSize;
+        this.kernels = kernels;
+        int half = windowSize / 2;
+        this.coarse = new float[windowSize / DECIMATION];
+        this.coarseCmndf = new double[half / DECIMATION];
+        this.prefix = new double[windowSize + 1];
+        this.prefixSquares = new double[windowSize + 1];
+        this.difference = new double[half];
+        this.cumulative = new double[half];
+        this.cmndf = new double[half];
+        setRange(minHz, maxHz);
+    }
+
+    /**
+     * Lowest and highest fundamentals of an instrument: its open strings from the lowest
+     * {@code tuning} note, up {@code frets} frets from the highest.
+     */
+    static double[] playableRange(AnalysisPlan plan, int[] tuning, int frets) {
+        int low = Integer.MAX_VALUE, high = Integer.MIN_VALUE;
+        for (int midi : tuning) {
+            low = Math.min(low, midi);
+            high = Math.max(high, midi);
+        }
+        return new double[]{plan.midiToHz(low), plan.midiToHz(high + frets)};
+    }
+
+    /** Searches [minHz, maxHz] first; the fallback still covers every lag. */
+    void setRange(double minHz, double maxHz) {
+        int last = windowSize / 2 - 2;
+        int maxLag = (int) Math.max(3, Math.min(last, Math.ceil(sampleRate / minHz)));
+        int minLag = (int) Math.max(2, Math.min(maxLag - 1, Math.floor(sampleRate / maxHz)));
+        lagRange = ((long) minLag << 32) | maxLag;
+    }
+
+    /** Frames that fell back to searching every lag; read from the analysis thread only. */
+    long fullSearches() {
+        return fullSearches;
+    }
+
+    @Override
+    public PitchDetectionResult getPitch(float[] audioBuffer) {
+        long range = lagRange;
+        int minLag = (int) (range >>> 32);
+        int maxLag = (int) range;
+        int n = Math.min(windowSize, audioBuffer.length);
+        int w = n / 2;
+        maxLag = Math.min(maxLag, w - 2);
+        if (minLag >= maxLag) return unpitched();
+
+        // Coarse YIN on sums of DECIMATION samples, over every coarse lag: the normalization
+        // needs them all, and the fallback refines dips anywhere
+        int cw = w / DECIMATION;
+        for (int k = 0; k < 2 * cw; k++) {
+            float sum = 0;
+            for (int j = k * DECIMATION; j < (k + 1) * DECIMATION; j++) sum += audioBuffer[j];
+            coarse[k] = sum;
+        }
+        coarseCmndf[0] = 1;
+        double runningSum = 0;
+        boolean anyDip = false;
+        for (int lag = 1; lag < cw; lag++) {
+            double d = kernels.squaredDistance(coarse, 0, lag, cw);
+            runningSum += d;
+            coarseCmndf[lag] = runningSum > 0 ? d * lag / runningSum : 1;
+            if (coarseCmndf[lag] < COARSE_THRESHOLD) anyDip = true;
+        }
+        if (!anyDip) return unpitched();
+
+        prefix[0] = 0;
+        prefixSquares[0] = 0;
+        for (int j = 0; j < n; j++) {
+            prefix[j + 1] = prefix[j] + audioBuffer[j];
+            prefixSquares[j + 1] = prefixSquares[j] + (double) audioBuffer[j] * audioBuffer[j];
+        }
+        int firstCoarse = Math.max(1, minLag / DECIMATION - 1);
+        int lastCoarse = Math.min(cw - 1, maxLag / DECIMATION + 1);
+        int tau = refineDips(audioBuffer, w, cw, firstCoarse, lastCoarse, minLag, maxLag);
+        if (tau < 0) {
+            // Nothing playable passed: search the rest of the lags, below the range first as YIN would
+            fullSearches++;
+            tau = refineDips(audioBuffer, w, cw, 1, firstCoarse - 1, 2, w - 2);
+            if (tau < 0) tau = refineDips(audioBuffer, w, cw, lastCoarse + 1, cw - 1, 2, w - 2);
+        }
+        return tau > 0 ? pitched(audioBuffer, w, tau) : unpitched();
+    }
+
+    /** Refines the coarse dips in [firstCoarse, lastCoarse] in order; the first lag that passes, or -1. */
+    private int refineDips(float[] x, int w, int cw, int firstCoarse, int lastCoarse, int minLag, int maxLag) {
+        for (int c = firstCoarse; c <= lastCoarse; c++) {
+            double v = coarseCmndf[c];
+            if (v >= COARSE_THRESHOLD) continue;
+            if (c > 1 && coarseCmndf[c - 1] < v) continue;
+            if (c + 1 < cw && coarseCmndf[c + 1] < v) continue;
+            int tau = refine(x, w, Math.max(minLag, (c - 1) * DECIMATION), Math.min(maxLag, (c + 1) * DECIMATION));
+            if (tau > 0) return tau;
+        }
+        return -1;
+    }
+
+    /**
+     * Exact YIN over [from, to]: the first lag below the threshold, widened to the left while the
+     * lags before it are below too and then followed down its dip; -1 if none is below.
+     */
+    private int refine(float[] x, int w, int from, int to) {
+        if (from > to) return -1;
+        open(x, w, from);
+        for (int tau = from; tau <= to; tau++) {
+            if (at(x, w, tau) >= THRESHOLD) continue;
+            while (tau > 2 && at(x, w, tau - 1) < THRESHOLD) tau--;
+            while (tau + 1 < w - 1 && at(x, w, tau + 1) < at(x, w, tau)) tau++;
+            return tau;
+        }
+        return -1;
+    }
+
+    /** Starts a new run of exact values at lag tau, with its cumulative sum from prefix sums. */
+    private void open(float[] x, int w, int tau) {
+        // sum_{j=1..tau} d(j) = tau * E(0) + sum_{j=1..tau} E(j) - 2 * sum_i x[i] * (x[i+1] + ... + x[i+tau])
+        double energy0 = prefixSquares[w];
+        double shifted = 0;
+        for (int j = 1; j <= tau; j++) shifted += prefixSquares[j + w] - prefixSquares[j];
+        double cross = 0;
+        for (int i = 0; i < w; i++) cross += x[i] * (prefix[i + tau + 1] - prefix[i + 1]);
+        double d = differenceAt(x, w, tau);
+        difference[tau] = d;
+        cumulative[tau] = Math.max(d, tau * energy0 + shifted - 2 * cross);
+        cmndf[tau] = normalized(d, tau, cumulative[tau]);
+        knownLo = knownHi = tau;
+    }
+
+    /** Exact normalized difference at tau, extending the run of known lags to reach it. */
+    private double at(float[] x, int w, int tau) {
+        while (tau > knownHi) {
+            int t = ++knownHi;
+            double d = differenceAt(x, w, t);
+            difference[t] = d;
+            cumulative[t] = cumulative[t - 1] + d;
+            cmndf[t] = normalized(d, t, cumulative[t]);
+        }
+        while (tau < knownLo) {
+            int t = --knownLo;
+            double d = differenceAt(x, w, t);
+            difference[t] = d;
+            cumulative[t] = Math.max(d, cumulative[t + 1] - difference[t + 1]);
+            cmndf[t] = normalized(d, t, cumulative[t]);
+        }
+        return cmndf[tau];
+    }
+
+    private double differenceAt(float[] x, int w, int tau) {
+        return kernels.squaredDistance(x, 0, tau, w);
+    }
+
+    private static double normalized(double d, int tau, double cumulativeSum) {
+        return cumulativeSum > 0 ? d * tau / cumulativeSum : 1;
+    }
+
+    private PitchDetectionResult pitched(float[] x, int w, int tau) {
+        double betterTau = tau;
+        if (tau + 1 < w) {
+            double s0 = at(x, w, tau - 1), s1 = at(x, w, tau), s2 = at(x, w, tau + 1);
+            double denom = 2 * (2 * s1 - s2 - s0);
+            if (denom != 0) betterTau = tau + (s2 - s0) / denom;
+        }
+        result.setPitch(sampleRate / (float) betterTau);
+        result.setProbability((float) (1 - cmndf[tau]));
+        result.setPitched(true);
+        return result;
+    }
+
+    private PitchDetectionResult unpitched() {
+        result.setPitch(-1);
+        result.setProbability(0);
+        result.setPitched(false);
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package org.openjfx;
+
+import be.tarsos.dsp.AudioDispatcher;
+
+import java.lang.management.ThreadMXBean;
+
+/**
+ * One analysed input: a single channel of an {@link AudioCapture} with its own dispatcher thread,
+ * pipeline and frame publisher. Channels share nothing, so the OS spreads them across cores.
+ */
+final class InputChannel {
+
+    final String name;
+    final AudioCapture capture;
+    final int channel;
+    final AudioDispatcher dispatcher;
+    final FramePublisher publisher;
+    final LatencyProbe probe;
+    private final AnalysisPipeline pipeline; // full analysis, or
+    private final TunerPipeline tuner;       // tuner mode
+    private Thread thread;
+    private long lastCpuNanos = -1;
+    private long lastWallNanos;
+
+    /**
+     * Builds the chain for one channel; a null config selects tuner mode. The tap sees every
+     * frame on the dispatcher thread before it is published.
+     */
+    InputChannel(String name, AudioCapture capture, int channel, float sampleRate, double a4RefHz,
+                 PipelineConfig config, AnalysisPipeline.Listener tap) {
+        this.name = name;
+        this.capture = capture;
+        this.channel = channel;
+        this.probe = new LatencyProbe(name);
+        RingBufferAudioInputStream stream = new RingBufferAudioInputStream(capture.ring(channel), capture.channelFormat(), probe);
+        if (config == null) {
+            dispatcher = new AudioDispatcher(stream, TunerPipeline.WINDOW, TunerPipeline.WINDOW - TunerPipeline.HOP);
+            publisher = new FramePublisher(0, 0, 0);
+            pipeline = null;
+            tuner = new TunerPipeline(sampleRate, a4RefHz, frame -> {
+                if (tap != null) tap.onFrame(frame);
+                publisher.publish(frame);
+            });
+            tuner.setLatencyProbe(probe);
+            tuner.attach(dispatcher);
+        } else {
+            dispatcher = new AudioDispatcher(stream, config.pitchWindow, config.pitchOverlap());
+            publisher = new FramePublisher(config.spectralBins(), config.spectralBins(), AnalysisContext.MAX_NOTES);
+            tuner = null;
+            pipeline = new AnalysisPipeline(sampleRate, a4RefHz, config, frame -> {
+                if (tap != null) tap.onFrame(frame);
+                publisher.publish(frame);
+            });
+            pipeline.setLatencyProbe(probe);
+            pipeline.attach(dispatcher);
+        }
+    }
+
+    boolean isTuner() {
+        return tuner != null;
+    }
+
+    AnalysisPlan plan() {
+        return tuner != null ? tuner.plan() : pipeline.plan();
+    }
+
+    void setA4RefHz(double a4RefHz) {
+        if (tuner != null) tuner.setA4RefHz(a4RefHz); else pipeline.setA4RefHz(a4RefHz);
+    }
+
+    /** Open strings to search pitches for in full analysis; the tuner keeps its string targets. */
+    void setTuning(int[] tuning) {
+        if (pipeline != null) pipeline.setTuning(tuning);
+    }
+
+    void restrictTo(int stringIndex) {
+        if (tuner != null) tuner.restrictTo(stringIndex);
+    }
+
+    void start() {
+        thread = new Thread(dispatcher, "Audio Dispatcher " + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the dispatcher; the capture is stopped separately since channels may share it. */
+    void stop() {
+        dispatcher.stop();
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            try { t.join(500); } catch (InterruptedException ignored) {}
+        }
+    }
+
+    /**
+     * CPU used by the dispatcher thread since the previous call, in cores (1.0 = one core busy),
+     * or NaN on the first call or when thread CPU time is unavailable.
+     */
+    double sampleCpuLoad(ThreadMXBean threads, long nowNanos) {
+        Thread t = thread;
+        long cpu = t != null ? threads.getThreadCpuTime(t.getId()) : -1;
+        if (cpu < 0) return Double.NaN;
+        double load = Double.NaN;
+        if (lastCpuNanos >= 0 && nowNanos > lastWallNanos) {
+            load = (cpu - lastCpuNanos) / (double) (nowNanos - lastWallNanos);
+        }
+        lastCpuNanos = cpu;
+        lastWallNanos = nowNanos;
+        return load;
+    }
+}
@@ -0,0 +1,67 @@
+package org.openjfx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Constant-memory latency histogram. Buckets are log-linear, 16 per power of two (about 6%
+ * resolution), in ~1 us units, and the range reaches well past a minute; longer values land
+ * in the last bucket. Written by one thread, readable from any.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int UNIT_SHIFT = 10; // 1024 ns units
+    private static final int GROUPS = 28;
+
+    private final AtomicLongArray counts = new AtomicLongArray(GROUPS * SUB);
+    private volatile long count;
+    private volatile long max;
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos >> UNIT_SHIFT));
+        // single writer, so plain read-modify-write of the volatiles is safe
+        count = count + 1;
+        if (nanos > max) max = nanos;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long maxNanos() {
+        return max;
+    }
+
+    /** Value at the given percentile (0..100) in nanoseconds, as the midpoint of its bucket. */
+    long percentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) total += counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(midpointOf(i) << UNIT_SHIFT, max);
+        }
+        return max;
+    }
+
+    private static int bucketOf(long units) {
+        if (units < SUB) return (int) units;
+        int magnitude = 63 - Long.numberOfLeadingZeros(units);
+        int group = magnitude - SUB_BITS + 1;
+        if (group >= GROUPS) return GROUPS * SUB - 1;
+        int sub = (int) (units >>> (magnitude - SUB_BITS)) - SUB;
+        return group * SUB + sub;
+    }
+
+    private static long midpointOf(int bucket) {
+        int group = bucket / SUB;
+        int sub = bucket % SUB;
+        if (group == 0) return sub;
+        int shift = group - 1;
+        return ((long) (SUB + sub) << shift) + ((1L << shift) >> 1);
+    }
+}
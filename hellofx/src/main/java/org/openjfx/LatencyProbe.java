@@ -0,0 +1,83 @@
+package org.openjfx;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * End-to-end latency instrumentation for one input channel. The ring reader stamps the capture
+ * time of the newest sample it hands to the dispatcher; every later stage records how long after
+ * capture it finished, so each histogram answers "how old is the audio when this stage is done".
+ */
+final class LatencyProbe {
+
+    enum Stage {
+        CAPTURE("capture"),   // picked up by the dispatcher from the ring
+        YIN("yin"),           // pitch estimate available
+        SPECTRAL("spectral"), // spectral peaks picked
+        CHROMA("chroma"),     // Constant-Q chroma and chord guess done
+        RENDER("render");     // shown on the FX thread
+
+        final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    final String name;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private volatile long captureNanos;
+
+    LatencyProbe(String name) {
+        this.name = name;
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+    }
+
+    /** Reader side of the ring: audio captured at the given time was just handed to the dispatcher. */
+    void captured(long nanos) {
+        captureNanos = nanos;
+        record(Stage.CAPTURE, System.nanoTime() - nanos);
+    }
+
+    /** Capture time of the newest sample in the buffer being analysed, or 0 before any audio. */
+    long captureNanos() {
+        return captureNanos;
+    }
+
+    /** Records the time since capture for a stage that finished now. */
+    void mark(Stage stage) {
+        long c = captureNanos;
+        if (c != 0) record(stage, System.nanoTime() - c);
+    }
+
+    void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /** One line, p50/p99/max in milliseconds per stage that has samples. */
+    String summary() {
+        StringBuilder sb = new StringBuilder(name);
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = histogram(stage);
+            if (h.count() == 0) continue;
+            sb.append(String.format(Locale.ROOT, " | %s %.1f/%.1f/%.1f", stage.label,
+                    h.percentileNanos(50) / 1e6, h.percentileNanos(99) / 1e6, h.maxNanos() / 1e6));
+        }
+        return sb.toString();
+    }
+
+    void writeReport(PrintWriter out) {
+        out.println("[" + name + "]");
+        out.println("stage       count      p50_ms   p90_ms   p99_ms   max_ms");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = histogram(stage);
+            out.println(String.format(Locale.ROOT, "%-10s %6d %10.2f %8.2f %8.2f %8.2f", stage.label, h.count(),
+                    h.percentileNanos(50) / 1e6, h.percentileNanos(90) / 1e6,
+                    h.percentileNanos(99) / 1e6, h.maxNanos() / 1e6));
+        }
+    }
+}
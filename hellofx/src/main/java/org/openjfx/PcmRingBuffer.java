@@ -0,0 +1,167 @@
+package org.openjfx;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated single-producer/single-consumer byte ring for PCM audio. The capture thread
+ * writes, one analysis thread reads. Positions are monotonically increasing longs published
+ * through volatile fields, so neither side takes a lock. When the reader falls behind, new
+ * audio that does not fit is dropped and counted as an overrun; when the reader finds the ring
+ * empty it parks and counts an underrun.
+ */
+final class PcmRingBuffer {
+
+    private static final long PARK_NANOS = 500_000L;
+    static final int MARKS = 256; // capture timestamps kept for the newest chunks
+
+    private final byte[] data;
+    private final int mask;
+    private final int frameSize;
+
+    private volatile long writePos;  // written by producer only
+    private volatile long readPos;   // written by consumer only
+    private volatile boolean closed;
+    private volatile Thread reader;
+
+    // Counters are single-writer: overruns by the producer, underruns by the consumer
+    private volatile long overruns;
+    private volatile long droppedBytes;
+    private volatile long underruns;
+    private volatile int peakFill;
+
+    // Ring of (end position, capture time) per written chunk, published through marks
+    private final long[] markEnd = new long[MARKS];
+    private final long[] markNanos = new long[MARKS];
+    private volatile long marks;
+
+    /** Capacity is rounded up to a power of two; frameSize keeps writes frame-aligned. */
+    PcmRingBuffer(int minCapacityBytes, int frameSize) {
+        int capacity = Integer.highestOneBit(Math.max(frameSize * 2, minCapacityBytes) - 1) << 1;
+        this.data = new byte[capacity];
+        this.mask = capacity - 1;
+        this.frameSize = frameSize;
+    }
+
+    int capacity() {
+        return data.length;
+    }
+
+    /**
+     * Producer: copies as many whole frames as fit; the rest is dropped. captureNanos is when the
+     * chunk came off the line. Returns bytes written.
+     */
+    int write(byte[] src, int off, int len, long captureNanos) {
+        long w = writePos;
+        int free = (int) (data.length - (w - readPos));
+        int n = Math.min(len, free);
+        n -= n % frameSize;
+        if (n < len) {
+            overruns = overruns + 1;
+            droppedBytes = droppedBytes + (len - n);
+        }
+        if (n > 0) {
+            int start = (int) (w & mask);
+            int first = Math.min(n, data.length - start);
+            System.arraycopy(src, off, data, start, first);
+            System.arraycopy(src, off + first, data, 0, n - first);
+            // Stamp before publishing, so a reader that sees the bytes also sees their time
+            long m = marks;
+            int slot = (int) (m & (MARKS - 1));
+            markEnd[slot] = w + n;
+            markNanos[slot] = captureNanos;
+            marks = m + 1;
+            writePos = w + n;
+            int fill = (int) (w + n - readPos);
+            if (fill > peakFill) peakFill = fill;
+            Thread t = reader;
+            if (t != null) LockSupport.unpark(t);
+        }
+        return n;
+    }
+
+    /**
+     * Consumer: blocks until at least one byte is available, then copies up to len bytes.
+     * Returns -1 once the ring is closed and drained.
+     */
+    int read(byte[] dst, int off, int len) {
+        long r = readPos;
+        long available = writePos - r;
+        if (available == 0) {
+            underruns = underruns + 1;
+            reader = Thread.currentThread();
+            while ((available = writePos - r) == 0) {
+                if (closed || Thread.currentThread().isInterrupted()) {
+                    reader = null;
+                    return -1;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            reader = null;
+        }
+        int n = (int) Math.min(len, available);
+        int start = (int) (r & mask);
+        int first = Math.min(n, data.length - start);
+        System.arraycopy(data, start, dst, off, first);
+        System.arraycopy(data, 0, dst, off + first, n - first);
+        readPos = r + n;
+        return n;
+    }
+
+    /** Total bytes consumed so far. */
+    long readPosition() {
+        return readPos;
+    }
+
+    /**
+     * Capture time of the chunk holding the byte just before pos, or 0 if it is no longer known
+     * (only the newest chunks are remembered) or the producer overwrote the marks being read.
+     */
+    long captureNanosAt(long pos) {
+        long m = marks;
+        long nanos = 0;
+        // Until the marks wrap the oldest one starts at 0, so it holds any earlier position
+        boolean found = m < MARKS;
+        long oldest = m;
+        // Mark m - MARKS shares its slot with the one write() fills next, so it is never read
+        for (long i = m - 1; i >= 0 && i > m - MARKS; i--) {
+            int slot = (int) (i & (MARKS - 1));
+            oldest = i;
+            if (markEnd[slot] < pos) {
+                found = true;
+                break;
+            }
+            nanos = markNanos[slot];
+        }
+        // A write that started during the scan fills mark marks, which reuses the slot of mark marks - MARKS
+        if (marks - MARKS >= oldest) return 0;
+        return found ? nanos : 0;
+    }
+
+    /** Bytes written but not yet read. */
+    int fill() {
+        return (int) (writePos - readPos);
+    }
+
+    /** Highest fill level seen by the producer, in bytes. */
+    int peakFill() {
+        return peakFill;
+    }
+
+    void close() {
+        closed = true;
+        Thread t = reader;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    long overruns() {
+        return overruns;
+    }
+
+    long droppedBytes() {
+        return droppedBytes;
+    }
+
+    long underruns() {
+        return underruns;
+    }
+}
@@ -0,0 +1,63 @@
+package org.openjfx;
+
+/**
+ * Window and hop sizes, in samples, for each analysis stage. The dispatcher runs at the pitch
+ * framing; the spectral peak and Constant-Q stages keep their own sliding windows and only run
+ * when their hop has elapsed, so every stage can be sized for what it measures.
+ */
+final class PipelineConfig {
+
+    /** 2048 keeps YIN stable down to low E; a 512 hop updates pitch every ~12 ms at 44.1 kHz. */
+    static final PipelineConfig DEFAULT = new PipelineConfig(2048, 512, 2048, 1024, 2048);
+
+    final int pitchWindow;
+    final int pitchHop;
+    final int spectralWindow;
+    final int spectralHop;
+    /** The chroma window is the Constant-Q FFT length; only its hop is configurable. */
+    final int chromaHop;
+
+    PipelineConfig(int pitchWindow, int pitchHop, int spectralWindow, int spectralHop, int chromaHop) {
+        if (pitchHop <= 0 || pitchHop > pitchWindow) {
+            throw new IllegalArgumentException("pitch hop must be in 1.." + pitchWindow + ": " + pitchHop);
+        }
+        if (spectralHop <= 0 || spectralHop > spectralWindow) {
+            throw new IllegalArgumentException("spectral hop must be in 1.." + spectralWindow + ": " + spectralHop);
+        }
+        // Stages are scheduled from dispatcher hops, so their hops must line up with it
+        if (spectralHop % pitchHop != 0 || chromaHop <= 0 || chromaHop % pitchHop != 0) {
+            throw new IllegalArgumentException("spectral and chroma hops must be multiples of the pitch hop " + pitchHop);
+        }
+        this.pitchWindow = pitchWindow;
+        this.pitchHop = pitchHop;
+        this.spectralWindow = spectralWindow;
+        this.spectralHop = spectralHop;
+        this.chromaHop = chromaHop;
+    }
+
+    /** DEFAULT, overridden by -Dnotedetect.pitchWindow=... etc. where given. */
+    static PipelineConfig fromSystemProperties() {
+        return new PipelineConfig(
+                Integer.getInteger("notedetect.pitchWindow", DEFAULT.pitchWindow),
+                Integer.getInteger("notedetect.pitchHop", DEFAULT.pitchHop),
+                Integer.getInteger("notedetect.spectralWindow", DEFAULT.spectralWindow),
+                Integer.getInteger("notedetect.spectralHop", DEFAULT.spectralHop),
+                Integer.getInteger("notedetect.chromaHop", DEFAULT.chromaHop));
+    }
+
+    /** Overlap to construct the AudioDispatcher with. */
+    int pitchOverlap() {
+        return pitchWindow - pitchHop;
+    }
+
+    /** Number of magnitude bins the spectral stage produces. */
+    int spectralBins() {
+        return spectralWindow / 2;
+    }
+
+    @Override
+    public String toString() {
+        return "pitch " + pitchWindow + "/" + pitchHop + ", spectral " + spectralWindow + "/" + spectralHop
+                + ", chroma hop " + chromaHop;
+    }
+}
@@ -1,25 +1,20 @@
 package org.openjfx;
 
-import be.tarsos.dsp.AudioDispatcher;
-import be.tarsos.dsp.AudioEvent;
-import be.tarsos.dsp.AudioProcessor;
-import be.tarsos.dsp.io.jvm.AudioDispatcherFactory;
-import be.tarsos.dsp.io.jvm.JVMAudioInputStream;
-import be.tarsos.dsp.io.TarsosDSPAudioInputStream;
-import be.tarsos.dsp.pitch.PitchDetectionHandler;
-import be.tarsos.dsp.pitch.PitchDetectionResult;
-import be.tarsos.dsp.pitch.PitchProcessor;
-import be.tarsos.dsp.SpectralPeakProcessor;
-import be.tarsos.dsp.ConstantQ;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
 
 import javax.sound.sampled.*;
 import java.io.IOException;
@@ -32,6 +27,7 @@ public class PrimaryController {
     @FXML private Button startStopButton;
     @FXML private Button refreshButton;
     @FXML private Label statusLabel;
+    @FXML private Label bufferLabel;
     @FXML private Label noteLabel;
     @FXML private Label freqLabel;
     @FXML private Label confLabel;
@@ -44,35 +40,102 @@ public class PrimaryController {
     @FXML private Button calibrateButton;
     @FXML private Label tuningLabel;
     @FXML private javafx.scene.control.ComboBox<String> tunerModeBox;
+    @FXML private ComboBox<String> pipelineModeBox;
     @FXML private Canvas tunerCanvas;
     @FXML private Label tunerTargetLabel;
     @FXML private Label tunerCentsLabel;
-
-    private volatile AudioDispatcher dispatcher;
-    private volatile Thread audioThread;
-    private SpectralPeakProcessor spectralPeaks;
-    private ConstantQ constantQ;
-    private int cqtFftLen;
-    private final java.util.Deque<Double> mainPitchHistory = new java.util.ArrayDeque<>(64);
-    private final java.util.Deque<double[]> chromaHistory = new java.util.ArrayDeque<>(16);
-    private float[] lastMagnitudes;
-    private java.util.List<SpectralPeakProcessor.SpectralPeak> lastPeaks;
+    @FXML private ComboBox<Integer> channelCountBox;
+    @FXML private Label inputsLabel;
+    @FXML private HBox channelsPane;
+    @FXML private CheckBox diagnosticsBox;
+    @FXML private Label diagnosticsLabel;
+    @FXML private Label scoreLabel;
+    @FXML private Button restartScoreButton;
+
+    // One entry per analysed channel across all opened inputs; the first drives the main display
+    private volatile List<InputChannel> channels;
+    private volatile List<AudioCapture> captures;
+    private final List<InputSpec> inputs = new ArrayList<>();
+    private final List<ChannelTile> tiles = new ArrayList<>();
+    // Counters behind the buffer label; a peak of -1 forces the next refresh
+    private int shownPeak = -1;
+    private long shownOverruns, shownLineOverruns, shownUnderruns, shownDropped, shownSuperseded;
+    private long lastCpuSample;
+    private long lastDiagnostics;
+    // Fed by the first channel's analysis thread; replaced on the FX thread when the tab changes
+    private volatile ScoreFollower follower;
+    private ScoreFollower shownFollower;
+    private long shownScore = -2;
+    // Renders at most once per display frame, from whatever the audio threads published last
+    private final AnimationTimer renderTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            List<InputChannel> active = channels;
+            if (active == null) return;
+            long superseded = 0, published = 0;
+            for (int i = 0; i < active.size(); i++) {
+                InputChannel ch = active.get(i);
+                AnalysisFrame frame = ch.publisher.poll();
+                superseded += ch.publisher.superseded();
+                published += ch.publisher.published();
+                if (frame == null) continue;
+                if (i == 0) {
+                    updatePitch(frame.pitchHz, frame.probability);
+                    // Tuner frames carry no spectrum or notes
+                    if (!ch.isTuner()) renderFrame(frame);
+                }
+                // No tiles when the view has no channels pane
+                if (i < tiles.size()) tiles.get(i).show(ch, frame);
+                if (frame.captureNanos != 0) {
+                    ch.probe.record(LatencyProbe.Stage.RENDER, System.nanoTime() - frame.captureNanos);
+                }
+            }
+            if (diagnosticsBox != null && diagnosticsBox.isSelected() && now - lastDiagnostics >= 250_000_000L) {
+                lastDiagnostics = now;
+                updateDiagnostics(active);
+            }
+            if (now - lastCpuSample >= 1_000_000_000L) {
+                lastCpuSample = now;
+                for (int i = 0; i < active.size() && i < tiles.size(); i++) {
+                    tiles.get(i).showCpu(active.get(i).sampleCpuLoad(THREADS, now));
+                }
+            }
+            updateBufferStats(superseded, published);
+            updateScore();
+        }
+    };
     private volatile boolean calibrating = false;
     private final java.util.List<Double> calibrationSamples = new java.util.ArrayList<>();
     private volatile double a4RefHz = 440.0;
     private volatile String tunerMode = "Auto";
+    private static final String FULL_MODE = "Full analysis";
+    private static final String TUNER_MODE = "Tuner";
+    private String pipelineMode = FULL_MODE;
 
     private static final float SAMPLE_RATE = 44100f;
-    private static final int BUFFER_SIZE = 2048; // Larger buffer improves low-frequency stability
-    private static final int OVERLAP = 1024;
+    private static final PipelineConfig PIPELINE_CONFIG = PipelineConfig.fromSystemProperties();
+    // Capture buffering, tunable per machine: -Dnotedetect.lineBufferMs=... -Dnotedetect.ringBufferMs=...
+    private static final int LINE_BUFFER_MS = Integer.getInteger("notedetect.lineBufferMs", 50);
+    private static final int RING_BUFFER_MS = Integer.getInteger("notedetect.ringBufferMs", 500);
+    private static final int CAPTURE_CHUNK_BYTES = 512;
+    private static final java.lang.management.ThreadMXBean THREADS = java.lang.management.ManagementFactory.getThreadMXBean();
 
     @FXML
     private void initialize() {
         populateDevices();
+        if (channelCountBox != null) {
+            channelCountBox.getItems().setAll(1, 2, 4, 6, 8);
+            channelCountBox.getSelectionModel().select(0);
+        }
+        updateInputsLabel();
         updateUIIdle();
         if (a4Field != null) a4Field.setText(String.format("%.1f", a4RefHz));
         updateTuningLabel();
         setupTunerUI();
+        if (diagnosticsBox != null && diagnosticsLabel != null) {
+            diagnosticsLabel.visibleProperty().bind(diagnosticsBox.selectedProperty());
+            diagnosticsLabel.managedProperty().bind(diagnosticsBox.selectedProperty());
+        }
     }
 
     @FXML
@@ -85,9 +148,42 @@ public class PrimaryController {
         App.setRoot("tabprototype");
     }
 
+    @FXML
+    private void onAddInput() {
+        MixerItem selected = deviceBox.getSelectionModel().getSelectedItem();
+        if (selected == null) return;
+        inputs.add(new InputSpec(selected, selectedChannelCount()));
+        updateInputsLabel();
+    }
+
+    @FXML
+    private void onClearInputs() {
+        inputs.clear();
+        updateInputsLabel();
+    }
+
+    private int selectedChannelCount() {
+        Integer n = channelCountBox != null ? channelCountBox.getValue() : null;
+        return n != null ? n : 1;
+    }
+
+    private void updateInputsLabel() {
+        if (inputsLabel == null) return;
+        if (inputs.isEmpty()) {
+            inputsLabel.setText("Inputs: selected device only");
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Inputs: ");
+        for (int i = 0; i < inputs.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('#').append(i + 1).append(' ').append(inputs.get(i));
+        }
+        inputsLabel.setText(sb.toString());
+    }
+
     @FXML
     private void onStartStop() {
-        if (dispatcher == null) {
+        if (channels == null) {
             startDetection();
         } else {
             stopDetection();
@@ -103,84 +199,121 @@ public class PrimaryController {
     }
 
     private void startDetection() {
-        MixerItem selected = deviceBox.getSelectionModel().getSelectedItem();
-        Mixer mixer = selected != null ? AudioSystem.getMixer(selected.info) : null;
+        List<InputSpec> specs = new ArrayList<>(inputs);
+        if (specs.isEmpty()) {
+            specs.add(new InputSpec(deviceBox.getSelectionModel().getSelectedItem(), selectedChannelCount()));
+        }
+        boolean tunerOnly = TUNER_MODE.equals(pipelineMode);
+        PipelineConfig config = tunerOnly ? null : PIPELINE_CONFIG;
+        // Calibration and score following use the first channel only
+        AnalysisPipeline.Listener calibrationTap = frame -> {
+            maybeCollectCalibration(frame.pitchHz, frame.probability);
+            ScoreFollower f = follower;
+            if (f != null) f.onFrame(frame);
+        };
 
+        List<AudioCapture> opened = new ArrayList<>();
+        List<InputChannel> created = new ArrayList<>();
         try {
-            if (mixer != null) {
-                AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, true);
-                DataLine.Info info = new DataLine.Info(TargetDataLine.class, format);
-                TargetDataLine line = (TargetDataLine) mixer.getLine(info);
-                line.open(format, BUFFER_SIZE);
-                line.start();
-                AudioInputStream ais = new AudioInputStream(line);
-                TarsosDSPAudioInputStream tarsosIn = new JVMAudioInputStream(ais);
-                dispatcher = new AudioDispatcher(tarsosIn, BUFFER_SIZE, OVERLAP);
-            } else {
-                dispatcher = AudioDispatcherFactory.fromDefaultMicrophone((int) SAMPLE_RATE, BUFFER_SIZE, OVERLAP);
+            for (int i = 0; i < specs.size(); i++) {
+                InputSpec spec = specs.get(i);
+                Mixer mixer = spec.mixer != null ? AudioSystem.getMixer(spec.mixer.info) : null;
+                AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, spec.channels, true, true);
+                int sampleBytes = format.getFrameSize() / spec.channels;
+                // In tuner mode hand audio over a hop at a time so it never waits for a larger chunk
+                int chunkBytes = tunerOnly ? TunerPipeline.HOP * sampleBytes : CAPTURE_CHUNK_BYTES;
+                AudioCapture capture = AudioCapture.open("#" + (i + 1), mixer, format,
+                        bytesFor(format, LINE_BUFFER_MS), bytesFor(format, RING_BUFFER_MS) / spec.channels, chunkBytes);
+                opened.add(capture);
+                for (int c = 0; c < capture.channels(); c++) {
+                    String name = capture.channels() > 1 ? capture.name() + "." + (c + 1) : capture.name();
+                    InputChannel channel = new InputChannel(name, capture, c, SAMPLE_RATE, a4RefHz, config,
+                            created.isEmpty() ? calibrationTap : null);
+                    channel.restrictTo(stringIndexFor(tunerMode));
+                    created.add(channel);
+                }
             }
         } catch (Exception ex) {
+            for (AudioCapture c : opened) c.stop();
             setStatus("Failed to open input: " + ex.getMessage());
-            dispatcher = null;
             return;
         }
 
-        PitchDetectionHandler handler = (PitchDetectionResult result, AudioEvent e) -> {
-            final float pitch = result.getPitch();
-            final float probability = result.getProbability();
-            Platform.runLater(() -> updatePitch(pitch, probability));
-        };
-
-        AudioProcessor pitchProcessor = new PitchProcessor(
-                PitchProcessor.PitchEstimationAlgorithm.YIN,
-                SAMPLE_RATE,
-                BUFFER_SIZE,
-                handler
-        );
-        dispatcher.addAudioProcessor(pitchProcessor);
-
-        spectralPeaks = new SpectralPeakProcessor(BUFFER_SIZE, OVERLAP, (int) SAMPLE_RATE);
-        dispatcher.addAudioProcessor(spectralPeaks);
-        // Initialize Constant-Q for robust chord/chroma detection
-        // Cover guitar range and a few harmonics: ~55Hz (A1) to 3520Hz (A7)
-        constantQ = new ConstantQ(SAMPLE_RATE, 55f, 3520f, 36f);
-        cqtFftLen = constantQ.getFFTlength();
-
-        dispatcher.addAudioProcessor(new AudioProcessor() {
-            @Override
-            public boolean process(AudioEvent audioEvent) {
-                analyzeSpectrum(audioEvent.getFloatBuffer());
-                return true;
-            }
-            @Override
-            public void processingFinished() { }
-        });
+        if (THREADS.isThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+        buildChannelTiles(created);
+        channels = List.copyOf(created);
+        captures = List.copyOf(opened);
+        syncFollower();
+        applyTuning();
+        renderTimer.start();
 
-        audioThread = new Thread(dispatcher, "Audio Dispatcher");
-        audioThread.setDaemon(true);
-        audioThread.start();
+        for (InputChannel ch : created) ch.start();
+        for (AudioCapture c : opened) c.start();
 
         startStopButton.setText("Stop");
         setStatus("Listening...");
     }
 
     private void stopDetection() {
-        AudioDispatcher d = dispatcher;
-        dispatcher = null;
-        if (d != null) {
-            d.stop();
+        List<AudioCapture> c = captures;
+        captures = null;
+        if (c != null) {
+            for (AudioCapture capture : c) capture.stop();
         }
-        Thread t = audioThread;
-        audioThread = null;
-        if (t != null) {
-            try { t.join(500); } catch (InterruptedException ignored) {}
+        List<InputChannel> active = channels;
+        channels = null;
+        if (active != null) {
+            for (InputChannel ch : active) ch.stop();
         }
+        renderTimer.stop();
         updateUIIdle();
+        if (active != null && diagnosticsBox != null && diagnosticsBox.isSelected()) {
+            dumpLatency(active);
+        }
+    }
+
+    private void updateDiagnostics(List<InputChannel> active) {
+        if (diagnosticsLabel == null) return;
+        StringBuilder sb = new StringBuilder("Latency since capture, p50/p99/max ms");
+        for (InputChannel ch : active) sb.append('\n').append(ch.probe.summary());
+        diagnosticsLabel.setText(sb.toString());
+    }
+
+    /** Writes every channel's latency histograms to ~/.notedetect/diagnostics. */
+    private void dumpLatency(List<InputChannel> active) {
+        String stamp = new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date());
+        java.nio.file.Path dir = java.nio.file.Paths.get(System.getProperty("user.home"), ".notedetect", "diagnostics");
+        java.nio.file.Path file = dir.resolve("latency-" + stamp + ".txt");
+        try {
+            java.nio.file.Files.createDirectories(dir);
+            try (java.io.PrintWriter out = new java.io.PrintWriter(java.nio.file.Files.newBufferedWriter(file))) {
+                out.println("# pipeline " + (TUNER_MODE.equals(pipelineMode) ? "tuner" : PIPELINE_CONFIG.toString()));
+                for (InputChannel ch : active) ch.probe.writeReport(out);
+            }
+            System.out.println("[Latency] wrote " + file);
+            setStatus("Idle (latency report: " + file + ")");
+        } catch (IOException ex) {
+            System.out.println("[Latency] failed to write " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private void buildChannelTiles(List<InputChannel> created) {
+        tiles.clear();
+        if (channelsPane == null) return;
+        channelsPane.getChildren().clear();
+        for (InputChannel ch : created) {
+            ChannelTile tile = new ChannelTile(ch.name);
+            tiles.add(tile);
+            channelsPane.getChildren().add(tile.root);
+        }
     }
 
     private void updateUIIdle() {
         startStopButton.setText("Start");
         setStatus("Idle");
+        shownPeak = -1;
         noteLabel.setText("--");
         freqLabel.setText("Freq: -- Hz");
         confLabel.setText("Confidence: --");
@@ -188,6 +321,7 @@ public class PrimaryController {
         chordLabel.setText("--");
         gestureLabel.setText("--");
         harmonicsLabel.setText("--");
+        updateScore();
         if (a4Field != null) a4Field.setText(String.format("%.1f", a4RefHz));
         updateTuningLabel();
     }
@@ -196,6 +330,84 @@ public class PrimaryController {
         statusLabel.setText(text);
     }
 
+    /** Starts a new follower when another tab was picked to follow, from its first measure. */
+    private void syncFollower() {
+        ScoreTimeline score = App.followedScore();
+        ScoreFollower f = follower;
+        if (f != null && f.score() == score) return;
+        // Steps at the spectral hop: the pitch-only hops in between add little for the cost
+        follower = score != null ? new ScoreFollower(score, PIPELINE_CONFIG.spectralHop / SAMPLE_RATE, this::currentPlan) : null;
+        if (restartScoreButton != null) restartScoreButton.setDisable(score == null);
+        applyTuning();
+    }
+
+    /** Pitch search follows the tuning of the followed tab, standard guitar otherwise. */
+    private void applyTuning() {
+        List<InputChannel> active = channels;
+        if (active == null) return;
+        ScoreTimeline score = App.followedScore();
+        int[] tuning = score != null ? score.tuning : AnalysisPlan.STANDARD_TUNING;
+        for (InputChannel ch : active) ch.setTuning(tuning);
+    }
+
+    private void updateScore() {
+        if (scoreLabel == null) return;
+        syncFollower();
+        ScoreFollower f = follower;
+        // Checked every display frame, so only format when the shown values change
+        long shown = f == null ? -1 : ((long) f.measure() << 32) | (Math.round(f.tempo() * 100) << 8) | Math.round(f.confidence() * 100);
+        if (f == shownFollower && shown == shownScore) return;
+        shownFollower = f;
+        shownScore = shown;
+        if (f == null) {
+            scoreLabel.setText("None (pick a track in the tab view and press Follow Along)");
+        } else {
+            scoreLabel.setText(String.format("Following %s: measure %d/%d, tempo %d%%, confidence %.2f", f.score().label,
+                    f.measure() + 1, f.score().measureCount, Math.round(f.tempo() * 100), f.confidence()));
+        }
+    }
+
+    @FXML
+    private void onRestartScore() {
+        ScoreFollower f = follower;
+        if (f != null) f.seekToMeasure(0);
+    }
+
+    private static int bytesFor(AudioFormat format, int millis) {
+        return (int) (format.getFrameRate() * millis / 1000) * format.getFrameSize();
+    }
+
+    /** Capture buffer counters, and how many published frames the display never drew. */
+    private void updateBufferStats(long superseded, long published) {
+        List<AudioCapture> active = captures;
+        if (bufferLabel == null || active == null) return;
+        long overruns = 0, lineOverruns = 0, underruns = 0, dropped = 0;
+        double peakRatio = 0;
+        for (AudioCapture c : active) {
+            lineOverruns += c.lineOverruns();
+            peakRatio = Math.max(peakRatio, c.peakFillRatio());
+            for (int ch = 0; ch < c.channels(); ch++) {
+                PcmRingBuffer ring = c.ring(ch);
+                overruns += ring.overruns();
+                underruns += ring.underruns();
+                dropped += ring.droppedBytes();
+            }
+        }
+        overruns += lineOverruns;
+        int peak = (int) (peakRatio * 100);
+        // Only rebuild the text when a counter moved
+        if (peak == shownPeak && overruns == shownOverruns && lineOverruns == shownLineOverruns
+                && underruns == shownUnderruns && dropped == shownDropped && superseded == shownSuperseded) return;
+        shownPeak = peak;
+        shownOverruns = overruns;
+        shownLineOverruns = lineOverruns;
+        shownUnderruns = underruns;
+        shownDropped = dropped;
+        shownSuperseded = superseded;
+        bufferLabel.setText(String.format("Ring peak %d%% | overruns %d (line %d, %d B dropped) | underruns %d"
+                + " | %d of %d frames superseded", peak, overruns, lineOverruns, dropped, underruns, superseded, published));
+    }
+
     private void updatePitch(float pitchHz, float confidence) {
         if (pitchHz <= 0) {
             noteLabel.setText("--");
@@ -204,160 +416,37 @@ public class PrimaryController {
             return;
         }
 
-        maybeCollectCalibration(pitchHz, confidence);
+        AnalysisPlan plan = currentPlan();
+        if (plan == null) return;
 
-        int midi = hzToMidiRef(pitchHz);
-        String note = midiToNoteName(midi);
+        int midi = plan.hzToMidi(pitchHz);
+        String note = AnalysisPipeline.midiToNoteName(midi);
         int octave = (midi / 12) - 1;
 
         noteLabel.setText(note + octave);
         freqLabel.setText(String.format("Freq: %.2f Hz", pitchHz));
         confLabel.setText(String.format("Confidence: %.2f", confidence));
-        updateTuner(pitchHz, confidence);
-    }
-
-    private int hzToMidiRef(double hz) {
-        // MIDI note calculation based on current A4 reference
-        double midi = 69 + 12 * (Math.log(hz / a4RefHz) / Math.log(2));
-        return (int) Math.round(midi);
-    }
-
-    private double midiToFreqRef(int midi) {
-        return a4RefHz * Math.pow(2.0, (midi - 69) / 12.0);
-    }
-
-    private static String midiToNoteName(int midi) {
-        String[] names = {"C","C#","D","D#","E","F","F#","G","G#","A","A#","B"};
-        int idx = Math.floorMod(midi, 12);
-        return names[idx];
-    }
-
-    private void analyzeSpectrum(float[] frame) {
-        if (spectralPeaks == null) return;
-        float[] mags = spectralPeaks.getMagnitudes();
-        float[] freqs = spectralPeaks.getFrequencyEstimates();
-        // Parameters for peak picking
-        int medianLen = 31;
-        float noiseFactor = 1.2f;
-        int numberOfPeaks = 8;
-        int minDistanceCents = 60; // separate at least ~semitone
-        float[] noise = SpectralPeakProcessor.calculateNoiseFloor(mags, medianLen, noiseFactor);
-        java.util.List<Integer> localMax = SpectralPeakProcessor.findLocalMaxima(mags, noise);
-        java.util.List<SpectralPeakProcessor.SpectralPeak> peaks = SpectralPeakProcessor.findPeaks(mags, freqs, localMax, numberOfPeaks, minDistanceCents);
-        lastMagnitudes = mags.clone();
-        lastPeaks = new java.util.ArrayList<>(peaks);
-
-        // Compute Constant-Q chroma for robust chord detection
-        double[] chroma = computeChroma(frame);
-        // Smooth chroma over recent frames for stability
-        pushChroma(chroma, 8);
-        double[] avgChroma = averageChroma();
-        java.util.List<Integer> topPcs = topPitchClasses(avgChroma, 6);
-        java.util.List<NotePeak> notes = new java.util.ArrayList<>();
-        for (int pc : topPcs) {
-            // Estimate an octave for labeling using the strongest peak near that pc
-            double f = findPeakNearPitchClass(peaks, pc);
-            int midi = hzToMidiRef(f > 0 ? f : a4RefHz);
-            String name = midiToNoteName(midi) + ((midi / 12) - 1);
-            notes.add(new NotePeak(name, midi, f, 0));
-        }
-
-        // Chord guess from chroma template matching
-        String chord = guessChordFromChroma(avgChroma);
-
-        // Gesture estimation on main note history
-        if (!notes.isEmpty()) {
-            double mainHz = notes.get(0).hz;
-            updatePitchHistory(mainHz);
-        }
-        String gesture = estimateGesture();
-
-        // Harmonics presence relative to dominant note
-        String harmonics = estimateHarmonics(notes);
-
-        // Update UI
-        Platform.runLater(() -> {
-            drawSpectrum(lastMagnitudes, lastPeaks);
-            if (notes.isEmpty()) {
-                polyLabel.setText("--");
-                chordLabel.setText("--");
-                gestureLabel.setText("--");
-                harmonicsLabel.setText("--");
-            } else {
-                String list = notes.stream().map(n -> n.name).reduce((a,b) -> a + ", " + b).orElse("--");
-                polyLabel.setText(list);
-                chordLabel.setText(chord);
-                gestureLabel.setText(gesture);
-                harmonicsLabel.setText(harmonics);
-            }
-        });
+        updateTuner(plan, pitchHz, confidence);
     }
 
-    private void pushChroma(double[] chroma, int max) {
-        chromaHistory.addLast(chroma.clone());
-        while (chromaHistory.size() > max) chromaHistory.pollFirst();
-    }
-
-    private double[] averageChroma() {
-        double[] out = new double[12];
-        if (chromaHistory.isEmpty()) return out;
-        for (double[] c : chromaHistory) {
-            for (int i = 0; i < 12; i++) out[i] += c[i];
-        }
-        for (int i = 0; i < 12; i++) out[i] /= chromaHistory.size();
-        // Normalize to [0,1]
-        double max = 0; for (double v : out) max = Math.max(max, v);
-        if (max > 0) for (int i = 0; i < 12; i++) out[i] /= max;
-        return out;
-    }
-
-    private double[] computeChroma(float[] frame) {
-        if (constantQ == null || frame == null) return new double[12];
-        int len = Math.max(cqtFftLen, frame.length);
-        float[] buf = new float[cqtFftLen];
-        // Copy latest frame; if shorter, zero-pad
-        int copy = Math.min(frame.length, cqtFftLen);
-        System.arraycopy(frame, 0, buf, 0, copy);
-        constantQ.calculateMagintudes(buf);
-        float[] mags = constantQ.getMagnitudes();
-        float[] freqs = constantQ.getFreqencies();
-        double[] chroma = new double[12];
-        for (int i = 0; i < mags.length; i++) {
-            float f = freqs[i];
-            if (f < 55 || f > 4000) continue;
-            int midi = hzToMidiRef(f);
-            int pc = Math.floorMod(midi, 12);
-            // Log compression for robustness
-            double w = Math.log1p(mags[i]);
-            // De-emphasize low freqs a bit to reduce bass dominance
-            double lf = 1.0 / Math.sqrt(Math.max(1.0, f / 110.0));
-            chroma[pc] += w * lf;
-        }
-        // Normalize
-        double max = 0;
-        for (double v : chroma) max = Math.max(max, v);
-        if (max > 0) for (int i = 0; i < 12; i++) chroma[i] /= max;
-        return chroma;
-    }
-
-    private java.util.List<Integer> topPitchClasses(double[] chroma, int k) {
-        java.util.List<Integer> idx = new java.util.ArrayList<>();
-        for (int i = 0; i < 12; i++) idx.add(i);
-        idx.sort((a,b) -> Double.compare(chroma[b], chroma[a]));
-        if (k < idx.size()) return new java.util.ArrayList<>(idx.subList(0, k));
-        return idx;
-    }
-
-    private double findPeakNearPitchClass(java.util.List<SpectralPeakProcessor.SpectralPeak> peaks, int pc) {
-        double bestHz = -1; double bestMag = -1e9;
-        if (peaks == null) return -1;
-        for (SpectralPeakProcessor.SpectralPeak p : peaks) {
-            int midi = hzToMidiRef(p.getFrequencyInHertz());
-            if (Math.floorMod(midi, 12) == pc) {
-                if (p.getMagnitude() > bestMag) { bestMag = p.getMagnitude(); bestHz = p.getFrequencyInHertz(); }
-            }
+    private AnalysisPlan currentPlan() {
+        List<InputChannel> active = channels;
+        return active != null ? active.get(0).plan() : null;
+    }
+
+    private void renderFrame(AnalysisFrame frame) {
+        drawSpectrum(frame.magnitudes, frame.peakBins, frame.peakCount);
+        if (frame.noteCount == 0) {
+            polyLabel.setText("--");
+            chordLabel.setText("--");
+            gestureLabel.setText("--");
+            harmonicsLabel.setText("--");
+        } else {
+            polyLabel.setText(frame.notesLabel(", "));
+            chordLabel.setText(frame.chord);
+            gestureLabel.setText(frame.gesture);
+            harmonicsLabel.setText(frame.harmonics);
         }
-        return bestHz;
     }
 
     @FXML
@@ -367,6 +456,7 @@ public class PrimaryController {
             double val = Double.parseDouble(a4Field.getText().trim());
             if (val < 400 || val > 500) throw new IllegalArgumentException();
             a4RefHz = val;
+            applyA4ToPipeline();
             updateTuningLabel();
         } catch (Exception ex) {
             setStatus("Invalid A4 value (400–500 Hz)");
@@ -375,7 +465,7 @@ public class PrimaryController {
 
     @FXML
     private void onCalibrate() {
-        if (dispatcher == null) {
+        if (channels == null) {
             setStatus("Start audio, then calibrate");
             return;
         }
@@ -390,6 +480,7 @@ public class PrimaryController {
             if (!Double.isNaN(offset)) {
                 // Adjust A4 reference by the measured offset (in cents)
                 a4RefHz = a4RefHz * Math.pow(2.0, offset / 1200.0);
+                applyA4ToPipeline();
             }
             calibrating = false;
             Platform.runLater(() -> {
@@ -401,13 +492,21 @@ public class PrimaryController {
         }, "Calibrate").start();
     }
 
+    private void applyA4ToPipeline() {
+        List<InputChannel> active = channels;
+        if (active == null) return;
+        for (InputChannel ch : active) ch.setA4RefHz(a4RefHz);
+    }
+
     private void maybeCollectCalibration(double pitchHz, float confidence) {
         if (!calibrating) return;
-        if (confidence < 0.85f) return;
-        int midi = hzToMidiRef(pitchHz);
-        double targetHz = midiToFreqRef(midi);
+        if (pitchHz <= 0 || confidence < 0.85f) return;
+        AnalysisPlan plan = currentPlan();
+        if (plan == null) return;
+        int midi = plan.hzToMidi(pitchHz);
+        double targetHz = plan.midiToHz(midi);
         if (targetHz <= 0) return;
-        double cents = 1200.0 * Math.log(pitchHz / targetHz) / Math.log(2);
+        double cents = AnalysisPlan.cents(pitchHz, targetHz);
         synchronized (calibrationSamples) { calibrationSamples.add(cents); }
     }
 
@@ -430,95 +529,7 @@ public class PrimaryController {
         tuningLabel.setText(String.format("A4: %.1f Hz (%+.1fc)", a4RefHz, offset));
     }
 
-    private String guessChordFromChroma(double[] chroma) {
-        String[] pcNames = {"C","C#","D","D#","E","F","F#","G","G#","A","A#","B"};
-        double total = 0; for (double v : chroma) total += v;
-        if (total <= 1e-6) return "--";
-
-        double bestScore = -1e9; String bestLabel = "--";
-
-        // thresholds and weights
-        double thr3Rel = 0.35;   // require at least 35% of max(root,fifth) on the third to call maj/min
-        double thr7Rel = 0.35;   // require at least 35% on the seventh to call 7/m7
-        double lambdaComplex = 0.10; // complexity penalty per extra interval beyond root+fifth
-
-        for (int root = 0; root < 12; root++) {
-            double R = chroma[root];
-            double E5 = chroma[(root + 7) % 12];
-            double EM3 = chroma[(root + 4) % 12];
-            double Em3 = chroma[(root + 3) % 12];
-            double E7 = chroma[(root + 10) % 12];
-
-            double base = Math.max(1e-6, Math.max(R, E5));
-            boolean hasMaj3 = EM3 >= thr3Rel * base;
-            boolean hasMin3 = Em3 >= thr3Rel * base;
-            boolean has7 = E7 >= thr7Rel * base;
-
-            // POWER (5)
-            double powerExplained = R + E5;
-            double powerPurity = powerExplained / total;
-            double powerScore = (1.00 * R + 0.95 * E5) * (0.6 + 0.4 * powerPurity);
-            // small penalty if strong third present (not a true power chord)
-            double thirdLeak = Math.max(EM3, Em3);
-            powerScore -= 0.05 * Math.max(0, thirdLeak - 0.25 * base);
-            String powerLabel = pcNames[root] + " 5";
-
-            // MAJOR
-            double majorScore = -1e9; String majorLabel = pcNames[root] + " Maj";
-            if (hasMaj3) {
-                double explained = R + E5 + EM3;
-                double purity = explained / total;
-                majorScore = (1.0 * R + 0.85 * EM3 + 0.90 * E5) * (0.6 + 0.4 * purity)
-                        - lambdaComplex * (3 - 2);
-            }
-
-            // MINOR
-            double minorScore = -1e9; String minorLabel = pcNames[root] + " Min";
-            if (hasMin3) {
-                double explained = R + E5 + Em3;
-                double purity = explained / total;
-                minorScore = (1.0 * R + 0.85 * Em3 + 0.90 * E5) * (0.6 + 0.4 * purity)
-                        - lambdaComplex * (3 - 2);
-            }
-
-            // DOM7
-            double dom7Score = -1e9; String dom7Label = pcNames[root] + " 7";
-            if (hasMaj3 && has7) {
-                double explained = R + E5 + EM3 + E7;
-                double purity = explained / total;
-                dom7Score = (1.0 * R + 0.80 * EM3 + 0.90 * E5 + 0.60 * E7) * (0.6 + 0.4 * purity)
-                        - lambdaComplex * (4 - 2);
-            }
-
-            // MIN7
-            double min7Score = -1e9; String min7Label = pcNames[root] + " m7";
-            if (hasMin3 && has7) {
-                double explained = R + E5 + Em3 + E7;
-                double purity = explained / total;
-                min7Score = (1.0 * R + 0.80 * Em3 + 0.90 * E5 + 0.60 * E7) * (0.6 + 0.4 * purity)
-                        - lambdaComplex * (4 - 2);
-            }
-
-            // Choose best for this root with a bias toward simpler models when close in score
-            double[] scores = new double[]{powerScore, majorScore, minorScore, dom7Score, min7Score};
-            String[] labels = new String[]{powerLabel, majorLabel, minorLabel, dom7Label, min7Label};
-
-            // Find top two
-            int bestIdx = 0; double bestLocal = scores[0];
-            for (int i = 1; i < scores.length; i++) if (scores[i] > bestLocal) { bestLocal = scores[i]; bestIdx = i; }
-            // If best is a 7th but only marginally better than power, prefer power
-            if ((bestIdx == 3 || bestIdx == 4) && powerScore > -1e8 && (bestLocal - powerScore) < 0.12) {
-                bestIdx = 0; bestLocal = powerScore;
-            }
-
-            if (bestLocal > bestScore) { bestScore = bestLocal; bestLabel = labels[bestIdx]; }
-        }
-
-        if (bestScore < 0.20) return "Uncertain";
-        return bestLabel;
-    }
-
-    private void drawSpectrum(float[] magnitudes, java.util.List<SpectralPeakProcessor.SpectralPeak> peaks) {
+    private void drawSpectrum(float[] magnitudes, int[] peakBins, int peakCount) {
         if (spectrumCanvas == null || magnitudes == null) return;
         double w = spectrumCanvas.getWidth();
         double h = spectrumCanvas.getHeight();
@@ -558,10 +569,10 @@ public class PrimaryController {
         g.stroke();
 
         // Draw peaks as circles
-        if (peaks != null) {
+        if (peakBins != null) {
             g.setFill(Color.web("#ffb86c"));
-            for (SpectralPeakProcessor.SpectralPeak p : peaks) {
-                int bin = p.getBin();
+            for (int p = 0; p < peakCount; p++) {
+                int bin = peakBins[p];
                 if (bin < 0 || bin >= n) continue;
                 double px = bin * xstep;
                 double py = h - ((magnitudes[bin] - min) / range) * h;
@@ -572,31 +583,56 @@ public class PrimaryController {
     }
 
     private static class StringSpec {
-        final String name; final int midi;
-        StringSpec(String name, int midi){ this.name=name; this.midi=midi; }
-        double freq(double a4) { return a4 * Math.pow(2.0, (midi - 69) / 12.0); }
+        // index into AnalysisPlan.stringHz, which follows AnalysisPlan.STANDARD_TUNING
+        final String name; final int index;
+        StringSpec(String name, int index){ this.name=name; this.index=index; }
     }
 
     private static final StringSpec[] STANDARD_STRINGS = new StringSpec[]{
-            new StringSpec("E2", 40),
-            new StringSpec("A2", 45),
-            new StringSpec("D3", 50),
-            new StringSpec("G3", 55),
-            new StringSpec("B3", 59),
-            new StringSpec("E4", 64)
+            new StringSpec("E2", 0),
+            new StringSpec("A2", 1),
+            new StringSpec("D3", 2),
+            new StringSpec("G3", 3),
+            new StringSpec("B3", 4),
+            new StringSpec("E4", 5)
     };
 
+    private static final double FIVE_HUNDRED_CENTS_RATIO = TunerPipeline.STRING_RANGE_RATIO;
+
     private void setupTunerUI() {
         if (tunerModeBox == null) return;
         tunerModeBox.getItems().setAll("Auto", "E2", "A2", "D3", "G3", "B3", "E4");
         tunerModeBox.getSelectionModel().select("Auto");
-        tunerModeBox.valueProperty().addListener((obs, o, n) -> tunerMode = n);
+        tunerModeBox.valueProperty().addListener((obs, o, n) -> {
+            tunerMode = n;
+            List<InputChannel> active = channels;
+            if (active != null) {
+                for (InputChannel ch : active) ch.restrictTo(stringIndexFor(n));
+            }
+        });
+        if (pipelineModeBox != null) {
+            pipelineModeBox.getItems().setAll(FULL_MODE, TUNER_MODE);
+            pipelineModeBox.getSelectionModel().select(FULL_MODE);
+            pipelineModeBox.valueProperty().addListener((obs, o, n) -> {
+                pipelineMode = n;
+                // The framing differs per mode, so a running input is reopened
+                if (channels != null) {
+                    stopDetection();
+                    startDetection();
+                }
+            });
+        }
         tunerTargetLabel.setText("--");
         tunerCentsLabel.setText("--");
         drawTuner(Double.NaN, 0);
     }
 
-    private void updateTuner(double pitchHz, float confidence) {
+    private static int stringIndexFor(String mode) {
+        for (StringSpec s : STANDARD_STRINGS) if (s.name.equals(mode)) return s.index;
+        return -1;
+    }
+
+    private void updateTuner(AnalysisPlan plan, double pitchHz, float confidence) {
         if (tunerCanvas == null) return;
         if (pitchHz <= 0 || confidence < 0.75f) {
             tunerTargetLabel.setText("--");
@@ -608,14 +644,15 @@ public class PrimaryController {
         // Determine target string
         StringSpec target = null;
         if ("Auto".equals(tunerMode)) {
-            double bestAbsCents = Double.MAX_VALUE;
+            // Smallest |cents| is the smallest ratio away from 1, so no logs are needed here
+            double bestRatio = Double.MAX_VALUE;
             for (StringSpec s : STANDARD_STRINGS) {
-                double cents = 1200.0 * Math.log(pitchHz / s.freq(a4RefHz)) / Math.log(2);
-                double ac = Math.abs(cents);
-                if (ac < bestAbsCents) { bestAbsCents = ac; target = s; }
+                double r = pitchHz / plan.stringHz[s.index];
+                double ratio = r >= 1 ? r : 1 / r;
+                if (ratio < bestRatio) { bestRatio = ratio; target = s; }
             }
             // If way off (> 500c), don't snap
-            if (bestAbsCents > 500) target = null;
+            if (bestRatio > FIVE_HUNDRED_CENTS_RATIO) target = null;
         } else {
             for (StringSpec s : STANDARD_STRINGS) if (s.name.equals(tunerMode)) { target = s; break; }
         }
@@ -627,8 +664,8 @@ public class PrimaryController {
             return;
         }
 
-        double targetHz = target.freq(a4RefHz);
-        double cents = 1200.0 * Math.log(pitchHz / targetHz) / Math.log(2);
+        double targetHz = plan.stringHz[target.index];
+        double cents = AnalysisPlan.cents(pitchHz, targetHz);
         tunerTargetLabel.setText(target.name);
         tunerCentsLabel.setText(String.format("%+.1fc", cents));
         drawTuner(cents, confidence);
@@ -682,75 +719,6 @@ public class PrimaryController {
         return 10 + t * (width - 20);
     }
 
-    private void updatePitchHistory(double hz) {
-        if (hz <= 0) return;
-        if (mainPitchHistory.size() >= 50) mainPitchHistory.pollFirst();
-        mainPitchHistory.addLast(hz);
-    }
-
-    private String estimateGesture() {
-        if (mainPitchHistory.size() < 6) return "--";
-        double[] arr = mainPitchHistory.stream().mapToDouble(Double::doubleValue).toArray();
-        // Convert to cents relative to first value
-        double base = arr[0];
-        if (base <= 0) return "--";
-        double[] cents = new double[arr.length];
-        for (int i = 0; i < arr.length; i++) {
-            cents[i] = 1200.0 * Math.log(arr[i] / base) / Math.log(2);
-        }
-        double total = cents[cents.length - 1] - cents[0];
-        double slope = total / cents.length;
-        double var = 0.0;
-        for (double c : cents) var += (c - total * c / total) * (c - total * c / total);
-        double absDiffSum = 0.0;
-        int signChanges = 0;
-        double prevDiff = 0.0;
-        for (int i = 1; i < cents.length; i++) {
-            double diff = cents[i] - cents[i-1];
-            absDiffSum += Math.abs(diff);
-            if (i > 1 && Math.signum(diff) != Math.signum(prevDiff)) signChanges++;
-            prevDiff = diff;
-        }
-        double range = Math.abs(total);
-        double avgStep = absDiffSum / (cents.length - 1);
-        if (range > 150 && signChanges < 2) return total > 0 ? "Slide Up" : "Slide Down";
-        if (range > 25 && range <= 150 && signChanges < 3) return total > 0 ? "Bend Up" : "Bend Down";
-        if (signChanges > 6 && avgStep < 30) return "Vibrato";
-        return "Stable";
-    }
-
-    private String estimateHarmonics(java.util.List<NotePeak> notes) {
-        if (notes == null || notes.isEmpty()) return "--";
-        double f0 = notes.get(0).hz;
-        int count = 0;
-        for (NotePeak n : notes) {
-            if (n == notes.get(0)) continue;
-            double ratio = n.hz / f0;
-            double nearest = Math.round(ratio);
-            if (nearest >= 2 && Math.abs(ratio - nearest) < 0.05) count++;
-        }
-        return count >= 2 ? ("Yes (" + count + ")") : "No";
-    }
-
-    private String guessChord(java.util.List<NotePeak> notes) {
-        if (notes.size() < 2) return "--";
-        java.util.Set<Integer> pcs = new java.util.HashSet<>();
-        for (NotePeak n : notes) pcs.add(n.midi % 12);
-        String[] names = {"C","C#","D","D#","E","F","F#","G","G#","A","A#","B"};
-        for (int root = 0; root < 12; root++) {
-            boolean major = pcs.contains(root) && pcs.contains((root+4)%12) && pcs.contains((root+7)%12);
-            boolean minor = pcs.contains(root) && pcs.contains((root+3)%12) && pcs.contains((root+7)%12);
-            if (major) return names[root] + " Maj";
-            if (minor) return names[root] + " Min";
-        }
-        return "Uncertain";
-    }
-
-    private static class NotePeak {
-        final String name; final int midi; final double hz; final double mag;
-        NotePeak(String name, int midi, double hz, double mag){ this.name=name; this.midi=midi; this.hz=hz; this.mag=mag; }
-    }
-
     private static List<MixerItem> listInputMixers() {
         List<MixerItem> items = new ArrayList<>();
         for (Mixer.Info info : AudioSystem.getMixerInfo()) {
@@ -763,6 +731,47 @@ public class PrimaryController {
         return items;
     }
 
+    /** One device to open, with how many of its channels to analyse separately. */
+    private static class InputSpec {
+        final MixerItem mixer; // null = system default
+        final int channels;
+        InputSpec(MixerItem mixer, int channels) { this.mixer = mixer; this.channels = channels; }
+        @Override public String toString() {
+            String device = mixer != null ? mixer.info.getName() : "Default";
+            return channels > 1 ? device + " (" + channels + " ch)" : device;
+        }
+    }
+
+    /** Compact per-channel readout shown side by side under the main display. */
+    private static class ChannelTile {
+        final VBox root = new VBox(2);
+        final Label note = new Label("--");
+        final Label detail = new Label("--");
+        final Label cpu = new Label("CPU --");
+
+        ChannelTile(String name) {
+            note.setFont(Font.font("Monospaced", FontWeight.BOLD, 20));
+            root.getChildren().addAll(new Label("Input " + name), note, detail, cpu);
+        }
+
+        void show(InputChannel ch, AnalysisFrame frame) {
+            if (frame.pitchHz > 0) {
+                note.setText(AnalysisPipeline.noteLabel(ch.plan().hzToMidi(frame.pitchHz)));
+            } else {
+                note.setText("--");
+            }
+            if (ch.isTuner()) {
+                detail.setText(frame.pitchHz > 0 ? String.format("%.1f Hz", frame.pitchHz) : "--");
+            } else {
+                detail.setText(frame.chord + " | " + frame.notesLabel(" "));
+            }
+        }
+
+        void showCpu(double cores) {
+            cpu.setText(Double.isNaN(cores) ? "CPU --" : String.format("CPU %.1f%%", cores * 100));
+        }
+    }
+
     public static class MixerItem {
         final Mixer.Info info;
         MixerItem(Mixer.Info info) { this.info = info; }
@@ -0,0 +1,65 @@
+package org.openjfx;
+
+import be.tarsos.dsp.io.TarsosDSPAudioFormat;
+import be.tarsos.dsp.io.TarsosDSPAudioInputStream;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Feeds an {@link be.tarsos.dsp.AudioDispatcher} from a {@link PcmRingBuffer}, optionally
+ * reporting the capture time of what it hands over to a {@link LatencyProbe}.
+ */
+final class RingBufferAudioInputStream implements TarsosDSPAudioInputStream {
+
+    private final PcmRingBuffer ring;
+    private final TarsosDSPAudioFormat format;
+    private final byte[] skipBuffer = new byte[4096];
+    private final LatencyProbe probe;
+
+    RingBufferAudioInputStream(PcmRingBuffer ring, AudioFormat format) {
+        this(ring, format, null);
+    }
+
+    RingBufferAudioInputStream(PcmRingBuffer ring, AudioFormat format, LatencyProbe probe) {
+        this.ring = ring;
+        this.probe = probe;
+        this.format = new TarsosDSPAudioFormat(format.getSampleRate(), format.getSampleSizeInBits(),
+                format.getChannels(), true, format.isBigEndian());
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        int n = ring.read(b, off, len);
+        if (n > 0 && probe != null) {
+            long captured = ring.captureNanosAt(ring.readPosition());
+            if (captured != 0) probe.captured(captured);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = 0;
+        while (skipped < n) {
+            int read = ring.read(skipBuffer, 0, (int) Math.min(skipBuffer.length, n - skipped));
+            if (read < 0) break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() {
+        ring.close();
+    }
+
+    @Override
+    public TarsosDSPAudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return -1;
+    }
+}
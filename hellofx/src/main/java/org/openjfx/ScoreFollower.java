@@ -0,0 +1,261 @@
+package org.openjfx;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Follows a player through a {@link ScoreTimeline} from the live analysis frames. The onsets are
+ * the states of a left-to-right hidden Markov model (stay, move to the next onset, or skip one)
+ * whose forward probabilities are updated once per step, at the spectral hop (~43 Hz at 44.1 kHz).
+ * How long an onset is expected to last follows its notated length, scaled by a running
+ * estimate of the player's tempo. Each step scores the frame against the onsets: the Constant-Q
+ * chroma and the spectral peaks against the onset's pitch-class profile, and a confident YIN
+ * pitch against the notes it strikes.
+ * <p>
+ * Only a band of {@link #BAND} onsets around the current position is kept, so every step costs
+ * the same and nothing grows with the song's length. Silent frames hold the position, which
+ * also covers rests. Steps run on the analysis thread and do not allocate; the position can be
+ * read from any thread.
+ */
+final class ScoreFollower {
+
+    static final int BAND = 64;
+    // Onsets kept behind the most likely one, for a player who goes back a little
+    private static final int BEHIND = 8;
+    private static final double SKIP = 0.05;
+    private static final double CHROMA_SHARPNESS = 6.0;
+    private static final float MIN_PITCH_PROBABILITY = 0.8f;
+    private static final double FLOOR = 1e-6;
+    // Frames whose peaks are this far below the loudest recent ones count as silence
+    private static final double SILENCE = 0.05;
+    private static final double LOUDEST_DECAY = 0.999;
+
+    private final ScoreTimeline score;
+    private final double stepSeconds;
+    private final Supplier<AnalysisPlan> plan;
+    private final double[] alpha = new double[BAND];
+    private final double[] stay = new double[BAND];
+    private final double[] observed = new double[12];
+    private final double[] peakChroma = new double[12];
+    private int lo;
+    private double lastStep = Double.NaN;
+    private int current;
+    private double currentSince;
+    private double tempo = 1;
+    private double loudest;
+    // Event to restart from, or -1; set from any thread, taken by the analysis thread
+    private final AtomicInteger pendingSeek = new AtomicInteger(-1);
+
+    private volatile int event;
+    private volatile float confidence;
+    private volatile float tempoRatio = 1;
+    private volatile long stepNanos;
+
+    /**
+     * @param stepSeconds time between steps; frames arriving sooner are skipped
+     * @param plan        current lookup tables, for MIDI numbers of the detected pitch and peaks
+     */
+    ScoreFollower(ScoreTimeline score, double stepSeconds, Supplier<AnalysisPlan> plan) {
+        this.score = score;
+        this.stepSeconds = stepSeconds;
+        this.plan = plan;
+        restart(0);
+    }
+
+    ScoreTimeline score() {
+        return score;
+    }
+
+    /** Index of the most likely onset. */
+    int event() {
+        return event;
+    }
+
+    int measure() {
+        return score.eventCount > 0 ? score.eventMeasure[event] : 0;
+    }
+
+    /** Probability of the most likely onset, 0..1. */
+    float confidence() {
+        return confidence;
+    }
+
+    /** Notated over played speed: above 1 the player is faster than the tab. */
+    float tempo() {
+        return tempoRatio;
+    }
+
+    /** Smoothed cost of one step. */
+    long stepNanos() {
+        return stepNanos;
+    }
+
+    /** Starts following again from the first onset of the measure; safe from any thread. */
+    void seekToMeasure(int measure) {
+        int e = 0;
+        while (e + 1 < score.eventCount && score.eventMeasure[e] < measure) e++;
+        pendingSeek.set(e);
+    }
+
+    /** Analysis thread: one step if at least a step's time has passed since the last one. */
+    void onFrame(AnalysisFrame frame) {
+        int seek = pendingSeek.getAndSet(-1);
+        if (seek >= 0) restart(seek);
+        if (score.eventCount == 0) return;
+        // Frame times start over with every new pipeline; carry on from where the player was
+        if (frame.timeStamp < lastStep) {
+            lastStep = Double.NaN;
+            currentSince = Double.NaN;
+        }
+        if (!Double.isNaN(lastStep) && frame.timeStamp - lastStep < stepSeconds * 0.999) return;
+        double dt = Double.isNaN(lastStep) ? stepSeconds : Math.min(frame.timeStamp - lastStep, 1.0);
+        lastStep = frame.timeStamp;
+
+        long start = System.nanoTime();
+        AnalysisPlan plan = this.plan.get();
+        if (plan == null) return;
+        int pitch = frame.pitchHz > 0 && frame.probability >= MIN_PITCH_PROBABILITY ? plan.hzToMidi(frame.pitchHz) : -1;
+        boolean hasChroma = observe(frame, plan);
+        if (hasChroma || pitch >= 0) {
+            step(dt, hasChroma, pitch, frame.timeStamp);
+        }
+        long elapsed = System.nanoTime() - start;
+        stepNanos = stepNanos == 0 ? elapsed : stepNanos + (elapsed - stepNanos) / 16;
+    }
+
+    private void restart(int at) {
+        lo = Math.max(0, Math.min(at - BEHIND, score.eventCount - BAND));
+        Arrays.fill(alpha, 0);
+        Arrays.fill(alpha, 0, size(), FLOOR);
+        alpha[at - lo] = 1;
+        normalize();
+        current = at;
+        currentSince = lastStep;
+        event = at;
+        confidence = 1;
+    }
+
+    /**
+     * Unit pitch-class profile of the frame, Constant-Q chroma and spectral peaks equally
+     * weighted; false for silence (or a frame without a spectrum).
+     */
+    private boolean observe(AnalysisFrame frame, AnalysisPlan plan) {
+        Arrays.fill(peakChroma, 0);
+        double energy = 0;
+        for (int p = 0; p < frame.peakCount; p++) {
+            int bin = frame.peakBins[p];
+            if (bin < 0 || bin >= frame.magnitudes.length || frame.peakHz[p] <= 0) continue;
+            float magnitude = frame.magnitudes[bin];
+            energy += magnitude;
+            peakChroma[Math.floorMod(plan.hzToMidi(frame.peakHz[p]), 12)] += Math.log1p(magnitude);
+        }
+        loudest = Math.max(energy, loudest * LOUDEST_DECAY);
+        if (energy <= loudest * SILENCE) return false;
+        double peakNorm = norm(peakChroma);
+        double cqtNorm = norm(frame.chroma);
+        for (int pc = 0; pc < 12; pc++) {
+            observed[pc] = (peakNorm > 0 ? peakChroma[pc] / peakNorm : 0) + (cqtNorm > 0 ? frame.chroma[pc] / cqtNorm : 0);
+        }
+        double total = norm(observed);
+        if (total <= 0) return false;
+        for (int pc = 0; pc < 12; pc++) {
+            observed[pc] /= total;
+        }
+        return true;
+    }
+
+    private void step(double dt, boolean hasChroma, int pitch, double now) {
+        int count = size();
+        for (int k = 0; k < count; k++) {
+            double expected = score.eventDuration[lo + k] * tempo;
+            stay[k] = Math.max(0, 1 - dt / Math.max(expected, dt));
+        }
+        // In place from the end, so each state still sees its predecessors' previous values
+        for (int k = count - 1; k >= 0; k--) {
+            double p = alpha[k] * stay[k];
+            if (k >= 1) p += alpha[k - 1] * (1 - stay[k - 1]) * (1 - SKIP);
+            if (k >= 2) p += alpha[k - 2] * (1 - stay[k - 2]) * SKIP;
+            alpha[k] = p * likelihood(lo + k, hasChroma, pitch) + FLOOR;
+        }
+        normalize();
+
+        int best = 0;
+        for (int k = 1; k < count; k++) {
+            if (alpha[k] > alpha[best]) best = k;
+        }
+        int position = lo + best;
+        updateTempo(position, alpha[best], now);
+        event = position;
+        confidence = (float) alpha[best];
+
+        // Keep the band just behind the position; onsets entering it start from the floor
+        int newLo = Math.max(0, Math.min(position - BEHIND, score.eventCount - BAND));
+        if (newLo > lo) {
+            int shift = newLo - lo;
+            System.arraycopy(alpha, shift, alpha, 0, BAND - shift);
+            Arrays.fill(alpha, BAND - shift, BAND, FLOOR);
+            lo = newLo;
+            normalize();
+        }
+    }
+
+    private double likelihood(int e, boolean hasChroma, int pitch) {
+        double b = 1;
+        if (hasChroma) {
+            double similarity = 0;
+            float[] template = score.eventChroma;
+            int base = e * 12;
+            for (int pc = 0; pc < 12; pc++) {
+                similarity += observed[pc] * template[base + pc];
+            }
+            b = Math.exp(CHROMA_SHARPNESS * (similarity - 1));
+        }
+        if (pitch >= 0) {
+            if (score.strikes(e, pitch)) b *= 2.0;
+            else if ((score.eventPitchClasses[e] & (1 << (pitch % 12))) != 0) b *= 1.3;
+            else b *= 0.6;
+        }
+        return b;
+    }
+
+    /** Compares the time spent on each onset the player leaves with its notated length. */
+    private void updateTempo(int position, double probability, double now) {
+        if (position == current) return;
+        if (position == current + 1 && !Double.isNaN(currentSince) && probability > 0.5) {
+            double notated = score.eventDuration[current];
+            double played = now - currentSince;
+            double ratio = played / notated;
+            if (ratio > 0.25 && ratio < 4) {
+                tempo = Math.max(0.5, Math.min(2, tempo * 0.9 + ratio * 0.1));
+                tempoRatio = (float) (1 / tempo);
+            }
+        }
+        current = position;
+        currentSince = now;
+    }
+
+    /** Onsets in the band; fewer than BAND near the end of a short score. */
+    private int size() {
+        return Math.max(1, Math.min(BAND, score.eventCount - lo));
+    }
+
+    private void normalize() {
+        int count = size();
+        double sum = 0;
+        for (int k = 0; k < count; k++) sum += alpha[k];
+        if (!(sum > 0)) {
+            Arrays.fill(alpha, 0, count, 1.0 / count);
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            alpha[k] /= sum;
+        }
+    }
+
+    private static double norm(double[] v) {
+        double sum = 0;
+        for (double x : v) sum += x * x;
+        return Math.sqrt(sum);
+    }
+}
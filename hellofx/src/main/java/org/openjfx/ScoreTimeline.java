@@ -0,0 +1,176 @@
+package org.openjfx;
+
+import java.util.Arrays;
+
+/**
+ * The onsets of a {@link TabPart} in playing order, as flat arrays: when each one starts at the
+ * notated tempo, which measure it is in, the MIDI notes struck and a unit pitch-class profile of
+ * everything sounding. Beats of all voices starting at the same position are one onset; beats
+ * that only hold tied notes, rests and dead notes start none.
+ */
+final class ScoreTimeline {
+
+    /** Weight of the fifth above each sounding note, standing in for its third harmonic. */
+    private static final float FIFTH_WEIGHT = 0.3f;
+    private static final float TIED_WEIGHT = 0.5f;
+
+    final String label;
+    /** Open strings of the part, as MIDI notes. */
+    final int[] tuning;
+    final int measureCount;
+    final int eventCount;
+    /** Onset of each event in seconds from the start of the part. */
+    final double[] eventSeconds;
+    final int[] eventMeasure;
+    /** Notated length of each event: until the next onset, or its own beat for the last one. */
+    final double[] eventDuration;
+    /** Pitch-class profile of event e at [e * 12, e * 12 + 12), unit length. */
+    final float[] eventChroma;
+    /** MIDI notes struck by event e, as bits of two 64-bit words at [e * 2, e * 2 + 2). */
+    final long[] eventPitches;
+    /** Pitch classes struck by each event, bit pc set for pitch class pc. */
+    final int[] eventPitchClasses;
+
+    private ScoreTimeline(String label, int[] tuning, int measureCount, int eventCount, double[] seconds, int[] measure,
+                          double[] duration, float[] chroma, long[] pitches, int[] pitchClasses) {
+        this.label = label;
+        this.tuning = tuning;
+        this.measureCount = measureCount;
+        this.eventCount = eventCount;
+        this.eventSeconds = seconds;
+        this.eventMeasure = measure;
+        this.eventDuration = duration;
+        this.eventChroma = chroma;
+        this.eventPitches = pitches;
+        this.eventPitchClasses = pitchClasses;
+    }
+
+    static ScoreTimeline of(String label, TabPart part) {
+        Builder b = new Builder(part.noteCount / 2 + 16);
+        double measureStart = 0;
+        int tempo = 0;
+        double bpm = part.tempoBpm.length > 0 ? part.tempoBpm[0] : 120;
+        // Positions within a measure are in whole notes
+        double[] position = new double[part.beatCount];
+        Integer[] order = new Integer[0];
+        for (int m = 0; m < part.measureCount; m++) {
+            while (tempo < part.tempoMeasure.length && part.tempoMeasure[tempo] <= m) {
+                bpm = Math.max(1, part.tempoBpm[tempo++]);
+            }
+            double wholeSeconds = 4 * 60.0 / bpm;
+            int first = part.measureFirstBeat[m];
+            int last = part.measureFirstBeat[m + 1];
+            double[] voicePosition = new double[8];
+            for (int beat = first; beat < last; beat++) {
+                int voice = Math.min(part.beatVoice[beat], voicePosition.length - 1);
+                position[beat] = voicePosition[voice];
+                voicePosition[voice] += part.beatDurationNum[beat] / (double) part.beatDurationDen[beat];
+            }
+            if (order.length < last - first) order = new Integer[last - first];
+            for (int i = 0; i < last - first; i++) {
+                order[i] = first + i;
+            }
+            // Voices are listed one after the other; interleave them by position
+            Arrays.sort(order, 0, last - first, (x, y) -> Double.compare(position[x], position[y]));
+            for (int i = 0; i < last - first; i++) {
+                int beat = order[i];
+                if (part.isRest(beat)) continue;
+                double seconds = measureStart + position[beat] * wholeSeconds;
+                double length = part.beatDurationNum[beat] / (double) part.beatDurationDen[beat] * wholeSeconds;
+                b.addBeat(part, beat, m, seconds, length);
+            }
+            double measureLength = part.measureNumerator[m] / (double) part.measureDenominator[m];
+            measureStart += measureLength * wholeSeconds;
+        }
+        return b.build(label, part.tuning.clone(), part.measureCount);
+    }
+
+    boolean strikes(int event, int midi) {
+        if (midi < 0 || midi > 127) return false;
+        return (eventPitches[event * 2 + (midi >> 6)] & (1L << (midi & 63))) != 0;
+    }
+
+    private static final class Builder {
+        int count;
+        double[] seconds;
+        int[] measure;
+        double[] duration;
+        float[] chroma;
+        long[] pitches;
+        int[] pitchClasses;
+        // whether the open event struck anything (a beat of ties only is not an onset)
+        boolean struck;
+
+        Builder(int capacity) {
+            seconds = new double[capacity];
+            measure = new int[capacity];
+            duration = new double[capacity];
+            chroma = new float[capacity * 12];
+            pitches = new long[capacity * 2];
+            pitchClasses = new int[capacity];
+        }
+
+        void addBeat(TabPart part, int beat, int m, double onset, double length) {
+            // Beats of other voices within a millisecond join the open event
+            boolean join = count > 0 && Math.abs(seconds[count - 1] - onset) < 1e-3;
+            if (!join) {
+                if (count > 0 && !struck) count--; // drop the open event, it held only ties
+                if (count == seconds.length) grow();
+                seconds[count] = onset;
+                measure[count] = m;
+                duration[count] = length;
+                Arrays.fill(chroma, count * 12, count * 12 + 12, 0f);
+                pitches[count * 2] = 0;
+                pitches[count * 2 + 1] = 0;
+                pitchClasses[count] = 0;
+                struck = false;
+                count++;
+            }
+            int e = count - 1;
+            duration[e] = Math.max(duration[e], length);
+            for (int note = part.beatFirstNote[beat]; note < part.beatFirstNote[beat + 1]; note++) {
+                int flags = part.noteFlags[note];
+                int midi = part.notePitch(note);
+                if (midi < 0 || midi > 127 || (flags & TabPart.NOTE_DEAD) != 0) continue;
+                boolean tied = (flags & TabPart.NOTE_TIE) != 0;
+                float weight = tied ? TIED_WEIGHT : 1f;
+                chroma[e * 12 + midi % 12] += weight;
+                chroma[e * 12 + (midi + 7) % 12] += weight * FIFTH_WEIGHT;
+                if (!tied) {
+                    pitches[e * 2 + (midi >> 6)] |= 1L << (midi & 63);
+                    pitchClasses[e] |= 1 << (midi % 12);
+                    struck = true;
+                }
+            }
+        }
+
+        ScoreTimeline build(String label, int[] tuning, int measureCount) {
+            if (count > 0 && !struck) count--;
+            for (int e = 0; e < count; e++) {
+                // Until the next onset, so overlapping voices do not stretch an event
+                if (e + 1 < count) duration[e] = Math.max(1e-3, seconds[e + 1] - seconds[e]);
+                double norm = 0;
+                for (int pc = 0; pc < 12; pc++) {
+                    norm += chroma[e * 12 + pc] * chroma[e * 12 + pc];
+                }
+                float scale = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0;
+                for (int pc = 0; pc < 12; pc++) {
+                    chroma[e * 12 + pc] *= scale;
+                }
+            }
+            return new ScoreTimeline(label, tuning, measureCount, count, Arrays.copyOf(seconds, count), Arrays.copyOf(measure, count),
+                    Arrays.copyOf(duration, count), Arrays.copyOf(chroma, count * 12), Arrays.copyOf(pitches, count * 2),
+                    Arrays.copyOf(pitchClasses, count));
+        }
+
+        private void grow() {
+            int capacity = seconds.length * 2;
+            seconds = Arrays.copyOf(seconds, capacity);
+            measure = Arrays.copyOf(measure, capacity);
+            duration = Arrays.copyOf(duration, capacity);
+            chroma = Arrays.copyOf(chroma, capacity * 12);
+            pitches = Arrays.copyOf(pitches, capacity * 2);
+            pitchClasses = Arrays.copyOf(pitchClasses, capacity);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.openjfx;
+
+import java.util.Map;
+
+/** What the song view page adds to a search hit: the current revision and each track's part id. */
+final class SongDetails {
+    private final int songId;
+    private final int revisionId;
+    private final Map<String, SongTrackInfo> tracksByHash;
+
+    SongDetails(int songId, int revisionId, Map<String, SongTrackInfo> tracksByHash) {
+        this.songId = songId;
+        this.revisionId = revisionId;
+        this.tracksByHash = tracksByHash;
+    }
+
+    int songId() {
+        return songId;
+    }
+
+    int revisionId() {
+        return revisionId;
+    }
+
+    Map<String, SongTrackInfo> tracksByHash() {
+        return tracksByHash;
+    }
+
+    SongTrackInfo trackForHash(String hash) {
+        return tracksByHash.get(hash);
+    }
+}
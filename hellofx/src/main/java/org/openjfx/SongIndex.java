@@ -0,0 +1,568 @@
+package org.openjfx;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Offline index of every song and track seen in search results and song details. Words of the
+ * artist, title, track name and instrument, and names of the track's tuning ("eadgbe",
+ * "standard", "ebstandard", "drop", "dropd"), map to track entries, so queries such as
+ * "metallica enter", "drop-D guitar" or "eb standard bass" are answered from memory in well
+ * under a millisecond and without the network.
+ * <p>
+ * Every change is appended to a journal of JSON lines, which is replayed at startup and
+ * rewritten once most of its lines have been superseded. All methods are thread-safe.
+ */
+final class SongIndex {
+
+    private static final int MAX_SONGS = 50;
+    private static final String[] NOTES = {"c", "db", "d", "eb", "e", "f", "gb", "g", "ab", "a", "bb", "b"};
+    // Words a query may carry that name no field; dropped when nothing in the index matches them
+    private static final Set<String> FILLER = Set.of("all", "any", "the", "in", "with", "for",
+            "song", "songs", "track", "tracks", "tuning", "tuned");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path journal;
+    private final Object journalLock = new Object();
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    // songId -> ids of its live entries, in track order
+    private final Map<Integer, int[]> songEntries = new HashMap<>();
+    private int journalLines;
+    // Until the journal is replayed, searches find nothing and updates wait
+    private final CompletableFuture<Void> loading;
+
+    /** Replays the journal, if any, before returning; a null journal keeps the index in memory only. */
+    SongIndex(Path journal) {
+        this.journal = journal;
+        if (journal != null) {
+            load();
+        }
+        loading = CompletableFuture.completedFuture(null);
+    }
+
+    private SongIndex(Path journal, Executor loader) {
+        this.journal = journal;
+        loading = CompletableFuture.runAsync(this::load, loader);
+    }
+
+    /** ~/.notedetect/index.jsonl, next to the disk cache, replayed in the background. */
+    static SongIndex openDefault() {
+        return new SongIndex(Paths.get(System.getProperty("user.home"), ".notedetect", "index.jsonl"), task -> {
+            Thread thread = new Thread(task, "song-index-load");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /** Adds or updates the songs and their tracks; songs that did not change cost nothing. */
+    void addSongs(List<SongItem> songs) {
+        loading.join();
+        synchronized (journalLock) {
+            List<String> lines = new ArrayList<>();
+            synchronized (this) {
+                for (SongItem song : songs) {
+                    List<Entry> tracks = new ArrayList<>();
+                    for (TrackItem track : song.tracks()) {
+                        tracks.add(new Entry(song.songId(), song.artist(), song.title(), track.index(), track.name(),
+                                track.instrument(), track.hash(), track.difficulty(), track.tuning(), track.partId()));
+                    }
+                    if (put(song.songId(), tracks)) {
+                        lines.add(songRecord(tracks, song.songId(), song.artist(), song.title()));
+                    }
+                }
+            }
+            append(lines);
+        }
+    }
+
+    /** Records the part ids the song page gave for the song's tracks. */
+    void addDetails(SongDetails details) {
+        loading.join();
+        synchronized (journalLock) {
+            Map<String, Integer> changed = new LinkedHashMap<>();
+            synchronized (this) {
+                int[] ids = songEntries.get(details.songId());
+                if (ids == null) return;
+                for (int id : ids) {
+                    Entry entry = entries.get(id);
+                    SongTrackInfo info = details.trackForHash(entry.hash);
+                    if (info != null && info.partId() != entry.partId) {
+                        entry.partId = info.partId();
+                        changed.put(entry.hash, info.partId());
+                    }
+                }
+            }
+            if (!changed.isEmpty()) {
+                append(List.of(partsRecord(details.songId(), changed)));
+            }
+        }
+    }
+
+    /**
+     * Songs with at least one track matching every word of the query, each holding only its
+     * matching tracks. The last word also matches as a prefix, for search as you type. Songs
+     * whose part ids are known (and so may be on disk) come first, then the most recently seen.
+     */
+    synchronized List<SongItem> search(String query) {
+        if (!loading.isDone()) return new ArrayList<>();
+        List<String> tokens = queryTokens(query);
+        List<Postings> exact = new ArrayList<>();
+        String prefix = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (i == tokens.size() - 1) {
+                String next = postings.ceilingKey(token);
+                if (next != null && next.startsWith(token)) {
+                    prefix = token;
+                    continue;
+                }
+            } else {
+                Postings list = postings.get(token);
+                if (list != null) {
+                    exact.add(list);
+                    continue;
+                }
+            }
+            if (!FILLER.contains(token)) return new ArrayList<>();
+        }
+        if (exact.isEmpty() && prefix == null) return new ArrayList<>();
+
+        // Candidates: the shortest exact list, or the entries under the prefix when that range is
+        // small, or else every entry (a common prefix then fills the result after a short walk)
+        exact.sort(Comparator.comparingInt(list -> list.size));
+        int[] candidates = null;
+        int count = entries.size();
+        if (!exact.isEmpty()) {
+            candidates = exact.get(0).ids;
+            count = exact.get(0).size;
+            exact.remove(0);
+        } else {
+            NavigableMap<String, Postings> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            int total = 0;
+            for (Postings list : range.values()) {
+                total += list.size;
+            }
+            if (total <= entries.size() / 8) {
+                BitSet union = new BitSet(entries.size());
+                for (Postings list : range.values()) {
+                    list.addTo(union);
+                }
+                candidates = union.stream().toArray();
+                count = candidates.length;
+                prefix = null;
+            }
+        }
+
+        // Newest entries first, grouped by song; a song's entries have consecutive ids
+        Map<Integer, List<Entry>> bySong = new LinkedHashMap<>();
+        for (int i = count - 1; i >= 0; i--) {
+            int id = candidates != null ? candidates[i] : i;
+            if (!live.get(id) || !matches(id, exact, prefix)) continue;
+            Entry entry = entries.get(id);
+            List<Entry> tracks = bySong.get(entry.songId);
+            if (tracks == null) {
+                if (bySong.size() == MAX_SONGS) break;
+                tracks = new ArrayList<>();
+                bySong.put(entry.songId, tracks);
+            }
+            tracks.add(entry);
+        }
+        List<SongItem> withParts = new ArrayList<>();
+        List<SongItem> others = new ArrayList<>();
+        for (List<Entry> tracks : bySong.values()) {
+            tracks.sort(Comparator.comparingInt(entry -> entry.index));
+            boolean hasParts = false;
+            List<TrackItem> items = new ArrayList<>();
+            for (Entry entry : tracks) {
+                TrackItem item = new TrackItem(entry.songId, entry.artist, entry.title, entry.index, entry.name,
+                        entry.instrument, entry.hash, entry.difficulty, entry.tuning);
+                item.setSongMeta(entry.partId, entry.index);
+                hasParts |= entry.partId >= 0;
+                items.add(item);
+            }
+            Entry first = tracks.get(0);
+            (hasParts ? withParts : others).add(new SongItem(first.songId, first.artist, first.title, items));
+        }
+        withParts.addAll(others);
+        return withParts;
+    }
+
+    /** Whether the query names a tuning, which the Songsterr search API cannot answer. */
+    static boolean namesTuning(String query) {
+        for (String token : queryTokens(query)) {
+            // "(note)standard", as queryTokens joins it; not any word ending in it, like "nonstandard"
+            if (token.endsWith("standard") && isNote(token.substring(0, token.length() - "standard".length()))) return true;
+            if (token.startsWith("drop") && isNote(token.substring(4))) return true;
+        }
+        return false;
+    }
+
+    /** Replaces the song's entries unless they are unchanged; true if anything changed. */
+    private boolean put(int songId, List<Entry> tracks) {
+        int[] previous = songEntries.get(songId);
+        if (previous != null) {
+            if (sameTracks(previous, tracks)) return false;
+            for (int id : previous) {
+                Entry old = entries.get(id);
+                live.clear(id);
+                // A re-listed song keeps the part ids its details gave, as long as the track did not change
+                for (Entry entry : tracks) {
+                    if (entry.partId < 0 && entry.hash.equals(old.hash)) entry.partId = old.partId;
+                }
+            }
+        }
+        int[] ids = new int[tracks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Entry entry = tracks.get(i);
+            int id = entries.size();
+            entries.add(entry);
+            live.set(id);
+            ids[i] = id;
+            for (String token : entry.tokens) {
+                postings.computeIfAbsent(token, key -> new Postings()).add(id);
+            }
+        }
+        songEntries.put(songId, ids);
+        return true;
+    }
+
+    private boolean sameTracks(int[] ids, List<Entry> tracks) {
+        if (ids.length != tracks.size()) return false;
+        for (int i = 0; i < ids.length; i++) {
+            Entry a = entries.get(ids[i]);
+            Entry b = tracks.get(i);
+            if (!a.artist.equals(b.artist) || !a.title.equals(b.title) || a.index != b.index
+                    || !a.name.equals(b.name) || !a.instrument.equals(b.instrument) || !a.hash.equals(b.hash)
+                    || a.difficulty != b.difficulty || !a.tuning.equals(b.tuning)
+                    || (b.partId >= 0 && a.partId != b.partId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int id, List<Postings> exact, String prefix) {
+        for (Postings list : exact) {
+            if (!list.contains(id)) return false;
+        }
+        if (prefix == null) return true;
+        for (String token : entries.get(id).tokens) {
+            if (token.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /** Words of the query, with "drop d" and "eb standard" joined into the tokens tunings index under. */
+    private static List<String> queryTokens(String query) {
+        List<String> words = words(query);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            String next = i + 1 < words.size() ? words.get(i + 1) : null;
+            if (word.equals("drop") && next != null && isNote(next)) {
+                tokens.add("drop" + next);
+                i++;
+            } else if (isNote(word) && "standard".equals(next)) {
+                tokens.add(word + "standard");
+                i++;
+            } else {
+                tokens.add(word);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower case words without accents, split on anything but letters, digits and '#'. Note
+     * names are spelled with flats, so "C#" and "Db" are the same word.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) return words;
+        String folded = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                folded = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+                break;
+            }
+        }
+        folded = folded.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '#') {
+                word.append(c);
+            } else if (word.length() > 0) {
+                String w = word.toString();
+                word.setLength(0);
+                if (w.length() == 2 && w.charAt(1) == '#' && w.charAt(0) >= 'a' && w.charAt(0) <= 'g') {
+                    w = noteName(Arrays.asList(NOTES).indexOf(String.valueOf(w.charAt(0))) + 1);
+                } else {
+                    w = w.replace("#", "");
+                }
+                if (!w.isEmpty()) words.add(w);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Tokens for a tuning listed highest string first: the notes from the lowest string up,
+     * plus "standard" and "(root)standard" when the strings are a fourth apart (with the major
+     * third below the top string on guitars of six or more strings), or "drop" and
+     * "drop(root)" when only the lowest string is a further tone down.
+     */
+    static List<String> tuningTokens(List<Integer> tuning, String instrument) {
+        List<String> tokens = new ArrayList<>();
+        int n = tuning.size();
+        if (n < 4) return tokens;
+        int[] low = new int[n];
+        StringBuilder notes = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            low[i] = tuning.get(n - 1 - i);
+            notes.append(noteName(low[i]));
+        }
+        tokens.add(notes.toString());
+        boolean bass = instrument != null && instrument.toLowerCase(Locale.ROOT).contains("bass");
+        boolean standard = true;
+        boolean drop = low[1] - low[0] == 7;
+        for (int i = 0; i < n - 1; i++) {
+            int expected = !bass && n >= 6 && i == n - 3 ? 4 : 5;
+            if (low[i + 1] - low[i] != expected) {
+                standard = false;
+                if (i > 0) drop = false;
+            }
+        }
+        String root = noteName(low[0]);
+        if (standard) {
+            tokens.add("standard");
+            tokens.add(root + "standard");
+        } else if (drop) {
+            tokens.add("drop");
+            tokens.add("drop" + root);
+        }
+        return tokens;
+    }
+
+    private static String noteName(int midi) {
+        return NOTES[Math.floorMod(midi, 12)];
+    }
+
+    private static boolean isNote(String word) {
+        return Arrays.asList(NOTES).contains(word);
+    }
+
+    private void load() {
+        if (!Files.exists(journal)) return;
+        long start = System.nanoTime();
+        int skipped = 0;
+        try {
+            for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8)) {
+                journalLines++;
+                try {
+                    replay(mapper.readTree(line));
+                } catch (IOException | RuntimeException ex) {
+                    skipped++;
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][index] could not read " + journal + ": " + ex.getMessage());
+            return;
+        }
+        System.out.println("[Songsterr][index] " + songEntries.size() + " songs, " + live.cardinality() + " tracks from "
+                + journal + " in " + (System.nanoTime() - start) / 1_000_000 + " ms" + (skipped > 0 ? ", " + skipped + " bad lines skipped" : ""));
+        if (journalLines > 2 * songEntries.size() + 256) {
+            compact();
+        }
+    }
+
+    private void replay(JsonNode record) {
+        int songId = record.path("songId").asInt(-1);
+        if (songId <= 0) return;
+        if (record.has("tracks")) {
+            String artist = record.path("artist").asText("");
+            String title = record.path("title").asText("");
+            List<Entry> tracks = new ArrayList<>();
+            for (JsonNode track : record.path("tracks")) {
+                List<Integer> tuning = new ArrayList<>();
+                track.path("tuning").forEach(t -> tuning.add(t.asInt()));
+                tracks.add(new Entry(songId, artist, title, track.path("index").asInt(), track.path("name").asText(""),
+                        track.path("instrument").asText(""), track.path("hash").asText(""),
+                        track.path("difficulty").asInt(-1), tuning, track.path("partId").asInt(-1)));
+            }
+            put(songId, tracks);
+        } else if (record.has("parts")) {
+            int[] ids = songEntries.get(songId);
+            if (ids == null) return;
+            for (int id : ids) {
+                Entry entry = entries.get(id);
+                JsonNode partId = record.path("parts").get(entry.hash);
+                if (partId != null) entry.partId = partId.asInt();
+            }
+        }
+    }
+
+    /** Rewrites the journal as one line per live song. */
+    private void compact() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Integer, int[]> song : songEntries.entrySet()) {
+            List<Entry> tracks = new ArrayList<>();
+            for (int id : song.getValue()) {
+                tracks.add(entries.get(id));
+            }
+            Entry first = tracks.isEmpty() ? null : tracks.get(0);
+            lines.add(songRecord(tracks, song.getKey(), first != null ? first.artist : "", first != null ? first.title : ""));
+        }
+        Path tmp = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try {
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("[Songsterr][index] compacted " + journalLines + " journal lines to " + lines.size());
+            journalLines = lines.size();
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][index] could not compact " + journal + ": " + ex.getMessage());
+        }
+    }
+
+    private void append(List<String> lines) {
+        if (journal == null || lines.isEmpty()) return;
+        try {
+            Files.createDirectories(journal.getParent());
+            Files.write(journal, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            journalLines += lines.size();
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][index] could not write " + journal + ": " + ex.getMessage());
+        }
+    }
+
+    private String songRecord(List<Entry> tracks, int songId, String artist, String title) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberField("songId", songId);
+            json.writeStringField("artist", artist);
+            json.writeStringField("title", title);
+            json.writeArrayFieldStart("tracks");
+            for (Entry entry : tracks) {
+                json.writeStartObject();
+                json.writeNumberField("index", entry.index);
+                json.writeStringField("name", entry.name);
+                json.writeStringField("instrument", entry.instrument);
+                json.writeStringField("hash", entry.hash);
+                json.writeNumberField("difficulty", entry.difficulty);
+                json.writeArrayFieldStart("tuning");
+                for (int midi : entry.tuning) {
+                    json.writeNumber(midi);
+                }
+                json.writeEndArray();
+                if (entry.partId >= 0) json.writeNumberField("partId", entry.partId);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return out.toString();
+    }
+
+    private String partsRecord(int songId, Map<String, Integer> parts) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberField("songId", songId);
+            json.writeObjectFieldStart("parts");
+            for (Map.Entry<String, Integer> part : parts.entrySet()) {
+                json.writeNumberField(part.getKey(), part.getValue());
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return out.toString();
+    }
+
+    private static final class Entry {
+        final int songId;
+        final String artist;
+        final String title;
+        final int index;
+        final String name;
+        final String instrument;
+        final String hash;
+        final int difficulty;
+        final List<Integer> tuning;
+        final String[] tokens;
+        int partId;
+
+        Entry(int songId, String artist, String title, int index, String name, String instrument,
+              String hash, int difficulty, List<Integer> tuning, int partId) {
+            this.songId = songId;
+            this.artist = artist;
+            this.title = title;
+            this.index = index;
+            this.name = name;
+            this.instrument = instrument;
+            this.hash = hash;
+            this.difficulty = difficulty;
+            this.tuning = tuning;
+            this.partId = partId;
+            Set<String> words = new LinkedHashSet<>(words(artist));
+            words.addAll(words(title));
+            words.addAll(words(name));
+            words.addAll(words(instrument));
+            words.addAll(tuningTokens(tuning, instrument));
+            this.tokens = words.toArray(new String[0]);
+        }
+    }
+
+    /** Entry ids for one token, ascending since ids only grow. */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+}
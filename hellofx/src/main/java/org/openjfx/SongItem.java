@@ -0,0 +1,38 @@
+package org.openjfx;
+
+import java.util.List;
+
+/** One Songsterr search hit with the tracks the search API listed for it. */
+final class SongItem {
+    private final int songId;
+    private final String artist;
+    private final String title;
+    private final List<TrackItem> tracks;
+
+    SongItem(int songId, String artist, String title, List<TrackItem> tracks) {
+        this.songId = songId;
+        this.artist = artist;
+        this.title = title;
+        this.tracks = tracks;
+    }
+
+    int songId() {
+        return songId;
+    }
+
+    String artist() {
+        return artist;
+    }
+
+    String title() {
+        return title;
+    }
+
+    List<TrackItem> tracks() {
+        return tracks;
+    }
+
+    String displayLabel() {
+        return title + " — " + artist;
+    }
+}
@@ -0,0 +1,137 @@
+package org.openjfx;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pulls the revision id and track part ids out of a Songsterr song page while it downloads.
+ * The HTML is scanned byte by byte up to the {@code <script id="state">} tag, the JSON after it
+ * is walked with a {@link JsonParser} only as far as {@code meta.current}, and the rest of the
+ * page is never read.
+ */
+final class SongStateReader {
+
+    private static final byte[] MARKER = "<script id=\"state\"".getBytes(StandardCharsets.US_ASCII);
+
+    private SongStateReader() {
+    }
+
+    /** Reads details for the song from the page stream, closing it (and so the connection) when done. */
+    static SongDetails read(JsonFactory factory, int songId, InputStream page) throws IOException {
+        CountingInputStream counted = new CountingInputStream(page);
+        try (InputStream in = new BufferedInputStream(counted, 16 * 1024)) {
+            skipToState(in);
+            JsonParser parser = factory.createParser(in);
+            // The parser must not close the page itself; that happens once, below
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            SongDetails details = readState(parser, songId);
+            System.out.println("[Songsterr][details] songId=" + songId + " revisionId=" + details.revisionId()
+                    + " tracks=" + details.tracksByHash().size() + " pageBytesRead=" + counted.count);
+            return details;
+        }
+    }
+
+    private static void skipToState(InputStream in) throws IOException {
+        int matched = 0;
+        int b;
+        while (matched < MARKER.length) {
+            if ((b = in.read()) < 0) throw new IOException("Unable to locate Songsterr state payload.");
+            if (b == MARKER[matched]) matched++;
+            else matched = b == MARKER[0] ? 1 : 0;
+        }
+        while ((b = in.read()) != '>') {
+            if (b < 0) throw new IOException("Malformed Songsterr state script.");
+        }
+    }
+
+    private static SongDetails readState(JsonParser parser, int songId) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Songsterr state payload is not a JSON object.");
+        }
+        if (!enterObject(parser, "meta") || !enterObject(parser, "current")) {
+            throw new IOException("Songsterr state has no meta.current.");
+        }
+        int revisionId = -1;
+        Map<String, SongTrackInfo> trackMap = new HashMap<>();
+        boolean sawTracks = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME && (revisionId <= 0 || !sawTracks)) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("revisionId".equals(field)) {
+                revisionId = parser.getValueAsInt(-1);
+            } else if ("tracks".equals(field) && value == JsonToken.START_ARRAY) {
+                sawTracks = true;
+                int index = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readTrack(parser, trackMap, index++);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (revisionId <= 0) {
+            throw new IOException("Songsterr response missing revision id.");
+        }
+        return new SongDetails(songId, revisionId, trackMap);
+    }
+
+    private static void readTrack(JsonParser parser, Map<String, SongTrackInfo> trackMap, int index) throws IOException {
+        String hash = null;
+        int partId = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("hash".equals(field)) hash = parser.getValueAsString();
+            else if ("partId".equals(field)) partId = parser.getValueAsInt(-1);
+            else parser.skipChildren();
+        }
+        if (hash != null && partId >= 0) {
+            trackMap.put(hash, new SongTrackInfo(partId, index));
+        }
+    }
+
+    /**
+     * Advances within the current object to the named field, skipping the others, and steps into
+     * its value. False when the object ends first or the value is not an object.
+     */
+    private static boolean enterObject(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean match = name.equals(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (match) return value == JsonToken.START_OBJECT;
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.openjfx;
+
+/** Part id and server-side position of one track within a song revision. */
+final class SongTrackInfo {
+    private final int partId;
+    private final int index;
+
+    SongTrackInfo(int partId, int index) {
+        this.partId = partId;
+        this.index = index;
+    }
+
+    int partId() {
+        return partId;
+    }
+
+    int index() {
+        return index;
+    }
+}
@@ -0,0 +1,287 @@
+package org.openjfx;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzipped on-disk cache for Songsterr payloads: song details by songId and tab parts by
+ * revisionId/partId. Entries are evicted least-recently-used once the total compressed size
+ * exceeds the bound; file modification times carry the recency across restarts.
+ * All methods block on disk I/O, so call them off the FX thread.
+ */
+final class SongsterrDiskCache {
+
+    private static final String SUFFIX = ".json.gz";
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    // Temp files older than this were left by a writer that was killed; younger ones may belong
+    // to another process writing to the same cache
+    private static final long STALE_TMP_MILLIS = 60 * 60 * 1000L;
+
+    private final Path root;
+    private final long maxBytes;
+    // key (relative path) -> compressed size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    SongsterrDiskCache(Path root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /** ~/.notedetect/cache, bounded by -Dnotedetect.cacheBytes (64 MB by default). */
+    static SongsterrDiskCache openDefault() {
+        Path root = Paths.get(System.getProperty("user.home"), ".notedetect", "cache");
+        return new SongsterrDiskCache(root, Long.getLong("notedetect.cacheBytes", DEFAULT_MAX_BYTES));
+    }
+
+    String getDetails(int songId) {
+        return get("details/" + songId);
+    }
+
+    void putDetails(int songId, String json) {
+        put("details/" + songId, json);
+    }
+
+    /** The part's JSON as a decompressing stream, or null when it is not cached. */
+    InputStream openPart(int revisionId, int partId) {
+        return open(partKey(revisionId, partId));
+    }
+
+    /**
+     * Stream for storing a part while it is being read from the network. Nothing is visible to
+     * readers until {@link EntryWriter#commit()}; closing without committing discards it.
+     */
+    EntryWriter writePart(int revisionId, int partId) {
+        return new EntryWriter(partKey(revisionId, partId));
+    }
+
+    /** Drops a part whose cached copy turned out to be unusable. */
+    synchronized void removePart(int revisionId, int partId) {
+        remove(partKey(revisionId, partId));
+    }
+
+    private static String partKey(int revisionId, int partId) {
+        return "parts/" + revisionId + "_" + partId;
+    }
+
+    private String get(String key) {
+        InputStream in = open(key);
+        if (in == null) return null;
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][cache] dropping unreadable " + key + ": " + ex.getMessage());
+            synchronized (this) {
+                remove(key);
+            }
+            return null;
+        }
+    }
+
+    private synchronized InputStream open(String key) {
+        if (!entries.containsKey(key)) return null;
+        Path file = fileFor(key);
+        try {
+            InputStream in = new GZIPInputStream(Files.newInputStream(file), 16 * 1024);
+            entries.get(key); // marks it most recently used
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return in;
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][cache] dropping unreadable " + file + ": " + ex.getMessage());
+            remove(key);
+            return null;
+        }
+    }
+
+    private void put(String key, String value) {
+        if (value == null) return;
+        try (EntryWriter writer = new EntryWriter(key)) {
+            writer.write(value.getBytes(StandardCharsets.UTF_8));
+            writer.commit();
+        }
+    }
+
+    private synchronized void commit(String key, Path tmp, Path file) throws IOException {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long size = Files.size(file);
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous != null ? previous : 0);
+        evict();
+    }
+
+    /**
+     * Gzips one entry into a temporary file. Write errors are logged and swallowed so a full
+     * disk never fails the download being copied here; the entry is then simply not stored.
+     */
+    final class EntryWriter extends OutputStream {
+        private final String key;
+        private final Path file;
+        private final Path tmp;
+        private OutputStream out;
+        private boolean committed;
+
+        private EntryWriter(String key) {
+            this.key = key;
+            this.file = fileFor(key);
+            // Unique per writer, so two downloads of the same part never share a temp file
+            this.tmp = file.resolveSibling(file.getFileName() + "." + System.nanoTime() + ".tmp");
+            try {
+                Files.createDirectories(file.getParent());
+                out = new GZIPOutputStream(Files.newOutputStream(tmp), 16 * 1024);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b) {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (out == null) return;
+            try {
+                out.write(b, off, len);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        /** Publishes what was written as the entry, replacing any previous version. */
+        void commit() {
+            if (out == null) return;
+            try {
+                out.close();
+                out = null;
+                SongsterrDiskCache.this.commit(key, tmp, file);
+                committed = true;
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (committed) return;
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+                out = null;
+            }
+            deleteQuietly(tmp);
+        }
+
+        private void fail(IOException ex) {
+            System.out.println("[Songsterr][cache] failed to write " + file + ": " + ex.getMessage());
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+            out = null;
+            deleteQuietly(tmp);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        // Always keep the entry just written, even if it alone exceeds the bound
+        while (totalBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            deleteQuietly(fileFor(eldest.getKey()));
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+        deleteQuietly(fileFor(key));
+    }
+
+    /** Rebuilds the index from disk, oldest access first, and clears out abandoned temp files. */
+    private void load() {
+        List<StoredEntry> found = new ArrayList<>();
+        long staleBefore = System.currentTimeMillis() - STALE_TMP_MILLIS;
+        int staleTmp = 0;
+        for (String dir : new String[]{"details", "parts"}) {
+            Path path = root.resolve(dir);
+            if (!Files.isDirectory(path)) continue;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    long modified = Files.getLastModifiedTime(file).toMillis();
+                    if (name.endsWith(".tmp")) {
+                        if (modified < staleBefore) {
+                            deleteQuietly(file);
+                            staleTmp++;
+                        }
+                    } else if (name.endsWith(SUFFIX)) {
+                        String key = dir + "/" + name.substring(0, name.length() - SUFFIX.length());
+                        found.add(new StoredEntry(key, modified, Files.size(file)));
+                    }
+                }
+            } catch (IOException ex) {
+                System.out.println("[Songsterr][cache] failed to scan " + path + ": " + ex.getMessage());
+            }
+        }
+        found.sort((a, b) -> Long.compare(a.lastAccess, b.lastAccess));
+        for (StoredEntry entry : found) {
+            entries.put(entry.key, entry.bytes);
+            totalBytes += entry.bytes;
+        }
+        evict();
+        System.out.println("[Songsterr][cache] " + root + " entries=" + entries.size() + " bytes=" + totalBytes
+                + (staleTmp > 0 ? " staleTmpDeleted=" + staleTmp : ""));
+    }
+
+    /** An entry found on disk by {@link #load()}. */
+    private static final class StoredEntry {
+        final String key;
+        final long lastAccess;
+        final long bytes;
+
+        StoredEntry(String key, long lastAccess, long bytes) {
+            this.key = key;
+            this.lastAccess = lastAccess;
+            this.bytes = bytes;
+        }
+    }
+
+    private Path fileFor(String key) {
+        return root.resolve(key + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+}
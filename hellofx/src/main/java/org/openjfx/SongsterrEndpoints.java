@@ -0,0 +1,59 @@
+package org.openjfx;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where {@link SongsterrService} sends its requests: the search API, the song page base and the
+ * tab part CDN bases. Overridable so the client can run against a local stub server.
+ */
+final class SongsterrEndpoints {
+
+    static final SongsterrEndpoints DEFAULT = new SongsterrEndpoints(
+            "https://www.songsterr.com/api/songs?pattern=",
+            "https://www.songsterr.com/a/wsa/",
+            Arrays.asList(
+                    "https://d3rrfvx08uyjp1.cloudfront.net",
+                    "https://dodkcbujl0ebx.cloudfront.net",
+                    "https://dj1usja78sinh.cloudfront.net"));
+
+    /** Search URL up to the URL-encoded term. */
+    final String search;
+    /** Song page URL up to the "artist-title-tab-sID" slug. */
+    final String songPage;
+    /** Part CDN bases, each followed by /part/revisionId/partId. */
+    final List<String> partBases;
+
+    SongsterrEndpoints(String search, String songPage, List<String> partBases) {
+        if (partBases.isEmpty()) {
+            throw new IllegalArgumentException("at least one part CDN base is required");
+        }
+        this.search = search;
+        this.songPage = songPage;
+        this.partBases = Collections.unmodifiableList(new ArrayList<>(partBases));
+    }
+
+    /**
+     * DEFAULT, overridden by -Dsongsterr.search=..., -Dsongsterr.songPage=... and
+     * -Dsongsterr.partBases=base1,base2,... where given.
+     */
+    static SongsterrEndpoints fromSystemProperties() {
+        String parts = System.getProperty("songsterr.partBases");
+        return new SongsterrEndpoints(
+                System.getProperty("songsterr.search", DEFAULT.search),
+                System.getProperty("songsterr.songPage", DEFAULT.songPage),
+                parts != null ? Arrays.asList(parts.split("\\s*,\\s*")) : DEFAULT.partBases);
+    }
+
+    static URI partUri(String base, int revisionId, int partId) {
+        return URI.create(base + "/part/" + revisionId + "/" + partId);
+    }
+
+    @Override
+    public String toString() {
+        return "search " + search + ", song pages " + songPage + ", parts " + partBases;
+    }
+}
@@ -0,0 +1,75 @@
+package org.openjfx;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Speculative warm-up for one list of search results: song details for the first few songs and
+ * the tab part of each one's first track, at most {@link #MAX_IN_FLIGHT} songs at a time.
+ * Parsed parts land on the {@link TrackItem}, so picking a warmed track shows it at once.
+ * {@link #cancel()} stops it from starting more work; loads already running are shared with
+ * any view waiting on the same song and are left to finish.
+ */
+final class SongsterrPrefetch {
+
+    static final int TOP_RESULTS = 5;
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private final SongsterrService songsterr;
+    private final Queue<SongItem> queue = new ArrayDeque<>();
+    private int inFlight;
+    private volatile boolean cancelled;
+
+    private SongsterrPrefetch(SongsterrService songsterr, List<SongItem> songs) {
+        this.songsterr = songsterr;
+        queue.addAll(songs.subList(0, Math.min(TOP_RESULTS, songs.size())));
+    }
+
+    static SongsterrPrefetch start(SongsterrService songsterr, List<SongItem> songs) {
+        SongsterrPrefetch prefetch = new SongsterrPrefetch(songsterr, songs);
+        prefetch.launch();
+        return prefetch;
+    }
+
+    void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            queue.clear();
+        }
+    }
+
+    private void launch() {
+        while (true) {
+            SongItem song;
+            synchronized (this) {
+                if (cancelled || inFlight >= MAX_IN_FLIGHT || queue.isEmpty()) return;
+                song = queue.poll();
+                inFlight++;
+            }
+            warm(song);
+        }
+    }
+
+    private void warm(SongItem song) {
+        songsterr.songDetails(song)
+                .thenCompose(details -> {
+                    TrackItem first = song.tracks().isEmpty() ? null : song.tracks().get(0);
+                    SongTrackInfo info = first != null ? details.trackForHash(first.hash()) : null;
+                    if (cancelled || info == null || first.tabPart() != null) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    return songsterr.tabPart(details, info).thenAccept(first::setTabPart);
+                })
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        System.out.println("[Songsterr][prefetch] songId=" + song.songId() + " failed: " + error.getMessage());
+                    }
+                    synchronized (this) {
+                        inFlight--;
+                    }
+                    launch();
+                });
+    }
+}
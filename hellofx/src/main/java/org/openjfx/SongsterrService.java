@@ -0,0 +1,631 @@
+package org.openjfx;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Application-lifetime access to Songsterr: search, song details and tab parts, backed by an
+ * in-memory details cache, the {@link SongsterrDiskCache} and one HTTP client and worker pool.
+ * Everything searches and song pages return also goes into the {@link SongIndex}, which answers
+ * tuning queries and stands in for search when Songsterr cannot be reached.
+ * Obtain it through {@link App#songsterr()}; futures complete off the FX thread.
+ */
+final class SongsterrService {
+
+    private static final String SONGSTERR_VIEW_BASE = SongsterrEndpoints.DEFAULT.songPage;
+    private static final String USER_AGENT = "NoteDetectTest/1.0 (+https://github.com)";
+    private static final Duration PART_TIMEOUT = Duration.ofSeconds(10);
+    private static final int SEARCH_CACHE_SIZE = 64;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final SongsterrEndpoints endpoints;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final SongsterrDiskCache diskCache;
+    private final SongIndex index;
+    private final List<CdnHostHealth> hostHealth = new ArrayList<>();
+    // normalized term -> results, least recently used first
+    private final Map<String, List<SongItem>> searchCache = new LinkedHashMap<>(SEARCH_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<SongItem>> eldest) {
+            return size() > SEARCH_CACHE_SIZE;
+        }
+    };
+    private final Map<Integer, SongDetails> songDetailsCache = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<SongDetails>> songDetailsInFlight = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<TabPart>> partsInFlight = new ConcurrentHashMap<>();
+
+    SongsterrService(SongsterrDiskCache diskCache, SongIndex index) {
+        this(diskCache, index, SongsterrEndpoints.fromSystemProperties(), Executors.newFixedThreadPool(4, new SongsterrThreadFactory()));
+    }
+
+    /** Parsing and cache I/O run on the executor, which the HTTP client also uses for its callbacks. */
+    SongsterrService(SongsterrDiskCache diskCache, SongIndex index, SongsterrEndpoints endpoints, ExecutorService executor) {
+        this.diskCache = diskCache;
+        this.index = index;
+        this.endpoints = endpoints;
+        this.executor = executor;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.ALWAYS)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        for (String base : endpoints.partBases) {
+            hostHealth.add(new CdnHostHealth(base));
+        }
+    }
+
+    /**
+     * Results for the term, from the search cache when it was seen recently. Terms naming a
+     * tuning are answered by the index, as are all terms when the request fails. Cancelling
+     * the returned future aborts the request.
+     */
+    CompletableFuture<List<SongItem>> search(String term) {
+        String key = normalizeTerm(term);
+        List<SongItem> cached = cachedSearch(key);
+        if (cached != null) {
+            System.out.println("[Songsterr][search] term=\"" + key + "\" (cache)");
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (SongIndex.namesTuning(key)) {
+            List<SongItem> local = index.search(key);
+            System.out.println("[Songsterr][search] term=\"" + key + "\" songs=" + local.size() + " (index)");
+            return CompletableFuture.completedFuture(local);
+        }
+        CompletableFuture<HttpResponse<String>> send = httpClient.sendAsync(searchRequest(key), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        CompletableFuture<List<SongItem>> result = send
+                .thenApplyAsync(response -> {
+                    List<SongItem> items = parseSongs(key, response);
+                    synchronized (searchCache) {
+                        searchCache.put(key, items);
+                    }
+                    index.addSongs(items);
+                    return items;
+                }, executor)
+                .exceptionally(error -> offlineSearch(key, error));
+        result.whenComplete((items, error) -> {
+            if (result.isCancelled()) {
+                send.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /** What the index knows for a term whose request failed; rethrows when that is nothing. */
+    private List<SongItem> offlineSearch(String key, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof CancellationException)) {
+            List<SongItem> local = index.search(key);
+            if (!local.isEmpty()) {
+                System.out.println("[Songsterr][search] term=\"" + key + "\" failed (" + cause + "), songs=" + local.size() + " (offline index)");
+                return local;
+            }
+        }
+        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+
+    /**
+     * Stand-in results while a search is in flight: the cached results of the longest
+     * previously searched prefix, narrowed to songs whose artist or title contain every word
+     * of the term, or else what the index has for it. Null when neither has anything.
+     */
+    List<SongItem> provisionalSearch(String term) {
+        String key = normalizeTerm(term);
+        List<SongItem> base = null;
+        int baseLength = -1;
+        synchronized (searchCache) {
+            // Iterating does not count as access, so this leaves the LRU order alone
+            for (Map.Entry<String, List<SongItem>> entry : searchCache.entrySet()) {
+                String prefix = entry.getKey();
+                if (prefix.length() > baseLength && key.startsWith(prefix)) {
+                    base = entry.getValue();
+                    baseLength = prefix.length();
+                }
+            }
+        }
+        if (base == null) {
+            List<SongItem> local = index.search(key);
+            return local.isEmpty() ? null : local;
+        }
+        String[] words = key.split(" ");
+        List<SongItem> filtered = new ArrayList<>();
+        for (SongItem song : base) {
+            String text = normalizeTerm(song.artist() + " " + song.title());
+            boolean all = true;
+            for (String word : words) {
+                if (!text.contains(word)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) filtered.add(song);
+        }
+        return filtered;
+    }
+
+    private List<SongItem> cachedSearch(String key) {
+        synchronized (searchCache) {
+            return searchCache.get(key);
+        }
+    }
+
+    /** Lower case with runs of whitespace collapsed, so "Enter  Sandman " and "enter sandman" share an entry. */
+    static String normalizeTerm(String term) {
+        return term == null ? "" : term.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /** Details from memory, then disk, then the song page; concurrent callers share one fetch. */
+    CompletableFuture<SongDetails> songDetails(SongItem song) {
+        SongDetails cached = songDetailsCache.get(song.songId());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return shareInFlight(songDetailsInFlight, song.songId(), () ->
+                CompletableFuture.supplyAsync(() -> {
+                            SongDetails details = readCachedSongDetails(song.songId());
+                            if (details != null) {
+                                return details;
+                            }
+                            details = fetchSongDetails(song);
+                            diskCache.putDetails(details.songId(), writeSongDetails(details));
+                            return details;
+                        }, executor)
+                        .whenComplete((details, error) -> {
+                            if (error == null && details != null) {
+                                songDetailsCache.put(song.songId(), details);
+                                index.addDetails(details);
+                            }
+                        })
+        );
+    }
+
+    /**
+     * Typed model of one part, streamed from disk or from the CDN (and copied to disk on the way).
+     * Concurrent callers, such as a prefetch and a click on the same track, share one load.
+     */
+    CompletableFuture<TabPart> tabPart(SongDetails details, SongTrackInfo info) {
+        String key = details.revisionId() + "_" + info.partId();
+        return shareInFlight(partsInFlight, key, () -> readPart(details, info, in -> TabPart.read(mapper.getFactory(), in)));
+    }
+
+    /**
+     * The load already running for the key, or a new one started by the loader. The entry is
+     * published before the loader runs, since a load that completes at once would otherwise
+     * try to remove itself from inside the map update that adds it.
+     */
+    private static <K, T> CompletableFuture<T> shareInFlight(Map<K, CompletableFuture<T>> inFlight, K key,
+                                                             Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<T> running = inFlight.putIfAbsent(key, shared);
+        if (running != null) {
+            return running;
+        }
+        loader.get().whenComplete((value, error) -> {
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared;
+    }
+
+    /**
+     * Pretty-printed JSON of one part, generated on each call from the cached (or downloaded)
+     * bytes; callers show it and drop it rather than keeping it next to the {@link TabPart}.
+     */
+    CompletableFuture<String> prettyTabJson(SongDetails details, SongTrackInfo info) {
+        return readPart(details, info, this::prettyPrint);
+    }
+
+    /** Copies one part's raw JSON to the file (replacing it) and yields the number of bytes written. */
+    CompletableFuture<Long> exportPart(SongDetails details, SongTrackInfo info, Path target) {
+        return readPart(details, info, in -> {
+            try (in) {
+                Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+                long bytes = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return bytes;
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> readPart(SongDetails details, SongTrackInfo info, PartReader<T> reader) {
+        int revisionId = details.revisionId();
+        int partId = info.partId();
+        return CompletableFuture
+                .supplyAsync(() -> readCachedPart(revisionId, partId, reader), executor)
+                .thenCompose(cached -> {
+                    if (cached != null) {
+                        return CompletableFuture.completedFuture(cached);
+                    }
+                    return fetchTabStream(details, info).thenApplyAsync(body -> {
+                        try (SongsterrDiskCache.EntryWriter entry = diskCache.writePart(revisionId, partId)) {
+                            T value = reader.read(new TeeInputStream(body, entry));
+                            entry.commit();
+                            return value;
+                        } catch (IOException ex) {
+                            throw new IllegalStateException("Unreadable tab part: " + ex.getMessage(), ex);
+                        }
+                    }, executor);
+                });
+    }
+
+    private <T> T readCachedPart(int revisionId, int partId, PartReader<T> reader) {
+        InputStream in = diskCache.openPart(revisionId, partId);
+        if (in == null) {
+            return null;
+        }
+        try {
+            T value = reader.read(in);
+            System.out.println("[Songsterr][scrape] part " + revisionId + "/" + partId + " (disk cache)");
+            return value;
+        } catch (IOException ex) {
+            System.out.println("[Songsterr][cache] dropping bad part " + revisionId + "/" + partId + ": " + ex.getMessage());
+            diskCache.removePart(revisionId, partId);
+            return null;
+        }
+    }
+
+    /** Copies the JSON token by token into an indented writer; no tree is built. */
+    private String prettyPrint(InputStream in) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonParser parser = mapper.getFactory().createParser(in);
+             JsonGenerator generator = mapper.getFactory().createGenerator(out).useDefaultPrettyPrinter()) {
+            if (parser.nextToken() != null) {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        return out.toString();
+    }
+
+    private SongDetails fetchSongDetails(SongItem song) {
+        try {
+            String url = endpoints.songPage + songSlug(song.artist(), song.title(), song.songId());
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "text/html")
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                closeQuietly(response.body());
+                throw new IOException("Song view returned HTTP " + response.statusCode());
+            }
+            // Stops reading (and drops the connection) right after the state's meta.current
+            return SongStateReader.read(mapper.getFactory(), song.songId(), response.body());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading song details.", ex);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    private SongDetails readCachedSongDetails(int songId) {
+        String json = diskCache.getDetails(songId);
+        if (json == null) {
+            return null;
+        }
+        try {
+            JsonNode root = mapper.readTree(json);
+            Map<String, SongTrackInfo> trackMap = new HashMap<>();
+            for (JsonNode trackNode : root.path("tracks")) {
+                trackMap.put(trackNode.path("hash").asText(), new SongTrackInfo(trackNode.path("partId").asInt(), trackNode.path("index").asInt()));
+            }
+            SongDetails details = new SongDetails(root.path("songId").asInt(), root.path("revisionId").asInt(), trackMap);
+            System.out.println("[Songsterr][details] songId=" + songId + " revisionId=" + details.revisionId() + " tracks=" + trackMap.size() + " (disk cache)");
+            return details;
+        } catch (Exception ex) {
+            System.out.println("[Songsterr][cache] ignoring bad details for songId=" + songId + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private String writeSongDetails(SongDetails details) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("songId", details.songId());
+        root.put("revisionId", details.revisionId());
+        ArrayNode tracksNode = root.putArray("tracks");
+        details.tracksByHash().forEach((hash, info) -> tracksNode.addObject()
+                .put("hash", hash)
+                .put("partId", info.partId())
+                .put("index", info.index()));
+        return root.toString();
+    }
+
+    /**
+     * Tries the CDN hosts healthiest first. When the current request outlives its host's recent
+     * p95, the next host is asked as well; the first 200 wins and the other requests are cancelled.
+     * A failure moves on to the next host immediately. The winner's body is handed over unread.
+     */
+    private CompletableFuture<InputStream> fetchTabStream(SongDetails details, SongTrackInfo info) {
+        List<CdnHostHealth> ranked = rankedHosts();
+        List<URI> uris = new ArrayList<>();
+        for (CdnHostHealth health : ranked) {
+            uris.add(SongsterrEndpoints.partUri(health.host, details.revisionId(), info.partId()));
+        }
+        return new HedgedFetch(ranked, uris).start();
+    }
+
+    /** The part CDN hosts in the order the next fetch will try them, healthiest first. */
+    List<CdnHostHealth> rankedHosts() {
+        List<CdnHostHealth> ranked = new ArrayList<>(hostHealth);
+        ranked.sort(Comparator.comparingDouble(CdnHostHealth::score));
+        return ranked;
+    }
+
+    private final class HedgedFetch {
+        private final List<CdnHostHealth> hosts;
+        private final List<URI> uris;
+        private final CompletableFuture<InputStream> result = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponse<InputStream>>> requests = new ArrayList<>();
+        private int launched;
+        private int finished;
+
+        HedgedFetch(List<CdnHostHealth> hosts, List<URI> uris) {
+            this.hosts = hosts;
+            this.uris = uris;
+            result.whenComplete((body, error) -> cancelOutstanding());
+        }
+
+        CompletableFuture<InputStream> start() {
+            launchNext();
+            return result;
+        }
+
+        private synchronized void launchNext() {
+            if (result.isDone() || launched >= uris.size()) return;
+            int index = launched++;
+            CdnHostHealth health = hosts.get(index);
+            URI uri = uris.get(index);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "application/json")
+                    .timeout(PART_TIMEOUT)
+                    .GET()
+                    .build();
+            long started = System.nanoTime();
+            CompletableFuture<HttpResponse<InputStream>> pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+            requests.add(pending);
+            pending.whenComplete((response, error) -> onResponse(health, uri, started, response, error));
+            if (launched < uris.size()) {
+                CompletableFuture.delayedExecutor(health.hedgeDelayNanos(), TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> {
+                            if (!pending.isDone() && !result.isDone()) {
+                                System.out.println("[Songsterr][scrape] hedging after " + health);
+                                launchNext();
+                            }
+                        });
+            }
+        }
+
+        private void onResponse(CdnHostHealth health, URI uri, long started, HttpResponse<InputStream> response, Throwable error) {
+            long elapsed = System.nanoTime() - started;
+            // A cancelled exchange may surface wrapped in a CompletionException
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            if (error instanceof CancellationException) {
+                health.recordAbandoned(elapsed);
+            } else if (error != null) {
+                health.recordFailure(elapsed);
+                System.out.println("[Songsterr][scrape] " + uri + " error=" + error.getMessage());
+            } else if (response.statusCode() == 200) {
+                // Time to headers: the body is read by the caller and does not count against the host
+                health.recordSuccess(elapsed);
+                System.out.println("[Songsterr][scrape] " + uri + " status=200 ms=" + elapsed / 1_000_000);
+                if (!result.complete(response.body())) {
+                    closeQuietly(response.body());
+                }
+            } else {
+                health.recordFailure(elapsed);
+                System.out.println("[Songsterr][scrape] " + uri + " status=" + response.statusCode());
+                closeQuietly(response.body());
+            }
+            if (result.isDone()) return;
+            boolean exhausted;
+            synchronized (this) {
+                finished++;
+                exhausted = finished == launched && launched == uris.size();
+            }
+            if (exhausted) {
+                result.completeExceptionally(new IOException("No Songsterr tab sources responded."));
+            } else {
+                launchNext();
+            }
+        }
+
+        private synchronized void cancelOutstanding() {
+            for (CompletableFuture<HttpResponse<InputStream>> request : requests) {
+                request.cancel(true);
+            }
+        }
+    }
+
+    private HttpRequest searchRequest(String term) {
+        String encoded = URLEncoder.encode(term, StandardCharsets.UTF_8);
+        return HttpRequest.newBuilder(URI.create(endpoints.search + encoded))
+                .header("Accept", "application/json")
+                .header("User-Agent", USER_AGENT)
+                .GET()
+                .build();
+    }
+
+    private List<SongItem> parseSongs(String term, HttpResponse<String> response) {
+        try {
+            String body = response.body();
+            System.out.println("[Songsterr][search] term=\"" + term + "\" status=" + response.statusCode() + " bytes=" + (body != null ? body.length() : 0));
+            if (response.statusCode() != 200) {
+                throw new IOException("Songsterr returned HTTP " + response.statusCode());
+            }
+
+            JsonNode root = mapper.readTree(body);
+            if (!root.isArray()) {
+                return Collections.emptyList();
+            }
+
+            List<SongItem> items = new ArrayList<>();
+            for (JsonNode node : root) {
+                int songId = node.path("songId").asInt(-1);
+                if (songId <= 0) continue;
+                String artist = node.path("artist").asText("Unknown Artist");
+                String title = node.path("title").asText("Untitled");
+                ArrayNode tracksNode = (ArrayNode) node.path("tracks");
+                List<TrackItem> trackItems = new ArrayList<>();
+                if (tracksNode != null) {
+                    for (JsonNode trackNode : tracksNode) {
+                        String hash = trackNode.path("hash").asText(null);
+                        if (hash == null || hash.isEmpty()) continue;
+                        String instrument = trackNode.path("instrument").asText("Unknown Instrument");
+                        String name = trackNode.path("name").asText(instrument);
+                        int difficulty = trackNode.path("difficulty").asInt(-1);
+                        List<Integer> tuning = new ArrayList<>();
+                        JsonNode tuningNode = trackNode.path("tuning");
+                        if (tuningNode.isArray()) {
+                            tuningNode.forEach(t -> tuning.add(t.asInt()));
+                        }
+                        int trackIndex = trackItems.size();
+                        trackItems.add(new TrackItem(songId, artist, title, trackIndex, name, instrument, hash, difficulty, tuning));
+                    }
+                }
+                items.add(new SongItem(songId, artist, title, trackItems));
+            }
+            return items;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    static String buildTrackUrl(TrackItem track) {
+        String base = buildSongUrl(track.artist(), track.title(), track.songId());
+        int trackIndex = track.index();
+        if (trackIndex >= 0) {
+            return base + "t" + trackIndex;
+        }
+        return base;
+    }
+
+    /** Public Songsterr page of the song, for opening in a browser. */
+    static String buildSongUrl(String artist, String title, int songId) {
+        return SONGSTERR_VIEW_BASE + songSlug(artist, title, songId);
+    }
+
+    static String songSlug(String artist, String title, int songId) {
+        return slugify(artist) + "-" + slugify(title) + "-tab-s" + songId;
+    }
+
+    static String slugify(String value) {
+        if (value == null || value.isBlank()) {
+            return "song";
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        String slug = normalized.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("-{2,}", "-");
+        if (slug.startsWith("-")) {
+            slug = slug.substring(1);
+        }
+        if (slug.endsWith("-")) {
+            slug = slug.substring(0, slug.length() - 1);
+        }
+        return slug.isEmpty() ? "song" : slug;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Consumes a part's JSON stream; implementations may stop reading before the end. */
+    private interface PartReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    /** Hands everything read from the body to the cache writer as well. */
+    private static final class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) copy.write(b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) copy.write(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Route skips through read so the copy stays complete
+            byte[] scratch = new byte[(int) Math.min(n, 8192)];
+            int read = read(scratch, 0, scratch.length);
+            return Math.max(read, 0);
+        }
+    }
+
+    private static class SongsterrThreadFactory implements ThreadFactory {
+        private int idx = 0;
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "songsterr-worker-" + idx++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
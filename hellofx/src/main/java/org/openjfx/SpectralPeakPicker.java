@@ -0,0 +1,217 @@
+package org.openjfx;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free equivalent of {@code SpectralPeakProcessor.calculateNoiseFloor},
+ * {@code findLocalMaxima} and {@code findPeaks}. Results live in the picker's own arrays
+ * and are valid until the next call to {@link #pick}.
+ */
+final class SpectralPeakPicker {
+
+    private final int medianLength;
+    private final float noiseFactor;
+    private final int numberOfPeaks;
+    private final int minDistanceCents;
+
+    private final float[] noiseFloor;
+    private final float[] sortScratch;
+    private final double[] window;
+    private final int[] maxima;
+    private final float[] peakMagnitudes;
+
+    final int[] peakBins;
+    final float[] peakHz;
+    final float[] peakMags;
+    private int peakCount;
+
+    SpectralPeakPicker(int bins, int medianLength, float noiseFactor, int numberOfPeaks, int minDistanceCents) {
+        this.medianLength = medianLength;
+        this.noiseFactor = noiseFactor;
+        this.numberOfPeaks = numberOfPeaks;
+        this.minDistanceCents = minDistanceCents;
+        this.noiseFloor = new float[bins];
+        this.sortScratch = new float[bins];
+        this.window = new double[medianLength];
+        this.maxima = new int[bins];
+        this.peakMagnitudes = new float[bins];
+        // Ties at the threshold can let a few more than numberOfPeaks through
+        this.peakBins = new int[bins];
+        this.peakHz = new float[bins];
+        this.peakMags = new float[bins];
+    }
+
+    int peakCount() {
+        return peakCount;
+    }
+
+    float[] noiseFloor() {
+        return noiseFloor;
+    }
+
+    /** Picks peaks from one magnitude spectrum; returns the number of peaks found. */
+    int pick(float[] magnitudes, float[] frequencies) {
+        calculateNoiseFloor(magnitudes);
+        int count = findLocalMaxima(magnitudes);
+        peakCount = findPeaks(magnitudes, frequencies, count);
+        return peakCount;
+    }
+
+    void calculateNoiseFloor(float[] magnitudes) {
+        int n = magnitudes.length;
+        System.arraycopy(magnitudes, 0, sortScratch, 0, n);
+        float median = (float) median(sortScratch, n);
+
+        // Median filter, padded with the global median outside the spectrum. The window is kept
+        // sorted: moving to the next bin replaces the value that leaves with the one that enters
+        // instead of sorting the whole window again.
+        int half = medianLength / 2;
+        for (int k = 0; k < medianLength; k++) {
+            window[k] = valueAt(magnitudes, k - half, median);
+        }
+        Arrays.sort(window);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                int leaving = i - 1 - half;
+                replace(valueAt(magnitudes, leaving, median), valueAt(magnitudes, leaving + medianLength, median));
+            }
+            noiseFloor[i] = (float) (percentile(window) * noiseFactor);
+        }
+        applyLowBinRamp(noiseFloor);
+    }
+
+    private static double valueAt(float[] magnitudes, int bin, float outside) {
+        return bin >= 0 && bin < magnitudes.length ? magnitudes[bin] : outside;
+    }
+
+    /**
+     * Swaps one occurrence of {@code out} in the sorted window for {@code in}: finds it by binary
+     * search, then moves the values ranked between the two over by one, in {@link Arrays#sort}
+     * order. Neighbouring bins are usually close in rank, so few values move.
+     */
+    private void replace(double out, double in) {
+        int at = Arrays.binarySearch(window, out);
+        if (Double.compare(in, out) > 0) {
+            for (; at + 1 < window.length && Double.compare(window[at + 1], in) < 0; at++) window[at] = window[at + 1];
+        } else {
+            for (; at > 0 && Double.compare(window[at - 1], in) > 0; at--) window[at] = window[at - 1];
+        }
+        window[at] = in;
+    }
+
+    /** Raises the floor for the lowest bins, as SpectralPeakProcessor does. */
+    static void applyLowBinRamp(float[] noiseFloor) {
+        float rampLength = 12.0f;
+        for (int i = 0; i <= rampLength && i < noiseFloor.length; i++) {
+            float ramp = (float) (-1 * (Math.log(i / rampLength))) + 1.0f;
+            noiseFloor[i] = ramp * noiseFloor[i];
+        }
+    }
+
+    private int findLocalMaxima(float[] magnitudes) {
+        int count = 0;
+        for (int i = 1; i < magnitudes.length - 1; i++) {
+            if (magnitudes[i - 1] < magnitudes[i] && magnitudes[i] > magnitudes[i + 1] && magnitudes[i] > noiseFloor[i]) {
+                maxima[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    private int findPeaks(float[] magnitudes, float[] frequencies, int maximaCount) {
+        if (maximaCount == 0) return 0;
+        // Drop maxima that are closer than minDistanceCents to the previously kept one, keeping the louder
+        int kept = 0;
+        double prevCents = 0;
+        for (int m = 0; m < maximaCount; m++) {
+            int bin = maxima[m];
+            if (frequencies[bin] < 0) continue;
+            double cents = hzToCents(frequencies[bin]);
+            if (kept > 0 && cents - prevCents < minDistanceCents) {
+                if (magnitudes[bin] > magnitudes[maxima[kept - 1]]) {
+                    maxima[kept - 1] = bin;
+                    prevCents = cents;
+                }
+                continue;
+            }
+            maxima[kept++] = bin;
+            prevCents = cents;
+        }
+        if (kept == 0) return 0;
+
+        for (int i = 0; i < kept; i++) peakMagnitudes[i] = magnitudes[maxima[i]];
+        Arrays.sort(peakMagnitudes, 0, kept);
+        float threshold = peakMagnitudes[0];
+        if (kept > numberOfPeaks) {
+            threshold = peakMagnitudes[kept - numberOfPeaks];
+        }
+
+        int count = 0;
+        for (int i = 0; i < kept; i++) {
+            int bin = maxima[i];
+            if (magnitudes[bin] >= threshold) {
+                peakBins[count] = bin;
+                peakHz[count] = frequencies[bin];
+                peakMags[count] = magnitudes[bin];
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double hzToCents(double hz) {
+        return 1200.0 * Math.log(hz) / Math.log(2);
+    }
+
+    /**
+     * Median of the first {@code n} values, interpolated like TarsosDSP's percentile(0.5), by
+     * quickselect rather than a full sort; reorders them.
+     */
+    private static double median(float[] values, int n) {
+        if (n == 0) return 0;
+        double t = 0.5 * (n - 1);
+        int i = (int) t;
+        select(values, n, i);
+        if (i + 1 >= n) return values[i];
+        // Everything after i is at least values[i]; the next value in order is the smallest of them
+        float next = values[i + 1];
+        for (int j = i + 2; j < n; j++) next = Math.min(next, values[j]);
+        return (i + 1 - t) * values[i] + (t - i) * next;
+    }
+
+    /** Partially orders the first {@code n} values so that values[k] is the k-th smallest, the rest on its sides. */
+    private static void select(float[] values, int n, int k) {
+        int lo = 0, hi = n - 1;
+        while (hi > lo) {
+            // Median of three as the pivot, so an already sorted spectrum stays linear
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < values[lo]) swap(values, mid, lo);
+            if (values[hi] < values[lo]) swap(values, hi, lo);
+            if (values[hi] < values[mid]) swap(values, hi, mid);
+            float pivot = values[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) swap(values, i++, j--);
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private static void swap(float[] values, int a, int b) {
+        float t = values[a];
+        values[a] = values[b];
+        values[b] = t;
+    }
+
+    private static double percentile(double[] sorted) {
+        int n = sorted.length;
+        double t = 0.5 * (n - 1);
+        int i = (int) t;
+        if (i + 1 >= n) return sorted[i];
+        return (i + 1 - t) * sorted[i] + (t - i) * sorted[i + 1];
+    }
+}
@@ -0,0 +1,55 @@
+package org.openjfx;
+
+/**
+ * Sliding window over the most recent samples for one analysis stage. It is fed the new samples of
+ * every dispatcher hop and reports when the stage's own hop has elapsed. Owned by the dispatcher thread.
+ */
+final class StageWindow {
+
+    private final float[] ring;
+    private final int hop;
+    private int head;     // next write position, i.e. the oldest sample
+    private int pending;  // samples pushed since the stage last ran
+
+    StageWindow(int length, int hop) {
+        this.ring = new float[length];
+        this.hop = hop;
+    }
+
+    int length() {
+        return ring.length;
+    }
+
+    /** Appends samples; returns true when at least one hop has arrived since the last copy. */
+    boolean push(float[] src, int off, int len) {
+        pending += len;
+        if (len > ring.length) {
+            off += len - ring.length;
+            len = ring.length;
+        }
+        int first = Math.min(len, ring.length - head);
+        System.arraycopy(src, off, ring, head, first);
+        System.arraycopy(src, off + first, ring, 0, len - first);
+        head = (head + len) % ring.length;
+        return pending >= hop;
+    }
+
+    /** Copies the window oldest sample first and starts the next hop. */
+    void copyChronological(float[] dst) {
+        int first = ring.length - head;
+        System.arraycopy(ring, head, dst, 0, first);
+        System.arraycopy(ring, 0, dst, first, head);
+        pending %= hop;
+    }
+
+    /** Copies the window newest sample first and starts the next hop. */
+    void copyNewestFirst(float[] dst) {
+        int n = ring.length;
+        int idx = head;
+        for (int i = 0; i < n; i++) {
+            idx = idx == 0 ? n - 1 : idx - 1;
+            dst[i] = ring[idx];
+        }
+        pending %= hop;
+    }
+}
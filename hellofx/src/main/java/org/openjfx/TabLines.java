@@ -0,0 +1,142 @@
+package org.openjfx;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Rows of the tab viewer, rendered on demand: a few header lines, then either one row per
+ * measure of a {@link TabPart} or the lines of a JSON text. Only the rows a cell asks for are
+ * ever turned into strings, so a virtualized list costs the same for any tab size.
+ */
+abstract class TabLines extends AbstractList<String> {
+
+    final String[] header;
+
+    private TabLines(String header) {
+        this.header = header == null || header.isEmpty() ? new String[0] : header.split("\n");
+    }
+
+    static TabLines of(String header) {
+        return new Measures(header, null);
+    }
+
+    static TabLines of(String header, TabPart part) {
+        return new Measures(header, part);
+    }
+
+    static TabLines ofText(String header, String text) {
+        return new Text(header, text);
+    }
+
+    /** Row showing the given measure (0-based), or -1 when these lines have no measures. */
+    int rowOfMeasure(int measure) {
+        return -1;
+    }
+
+    /**
+     * First row at or after {@code from} (wrapping around) containing the query, ignoring case,
+     * or -1 when no row matches.
+     */
+    int find(String query, int from) {
+        int size = size();
+        if (query == null || query.isEmpty() || size == 0) return -1;
+        String needle = query.toLowerCase(Locale.ROOT);
+        int start = Math.floorMod(from, size);
+        for (int i = 0; i < size; i++) {
+            int row = (start + i) % size;
+            if (get(row).toLowerCase(Locale.ROOT).contains(needle)) return row;
+        }
+        return -1;
+    }
+
+    private static final class Measures extends TabLines {
+        private final TabPart part;
+
+        Measures(String header, TabPart part) {
+            super(header);
+            this.part = part;
+        }
+
+        @Override
+        public int size() {
+            return header.length + (part != null ? part.measureCount : 0);
+        }
+
+        @Override
+        public String get(int row) {
+            if (row < header.length) return header[row];
+            return renderMeasure(row - header.length);
+        }
+
+        @Override
+        int rowOfMeasure(int measure) {
+            if (part == null || part.measureCount == 0) return -1;
+            return header.length + Math.max(0, Math.min(part.measureCount - 1, measure));
+        }
+
+        /** "  12  4/4 | 6:3 5:2~ 1/8 | r 1/4 | ..."; strings are numbered 1 (highest) and up. */
+        private String renderMeasure(int m) {
+            StringBuilder sb = new StringBuilder(96);
+            sb.append(String.format(Locale.ROOT, "%4d  %d/%d", m + 1, part.measureNumerator[m], part.measureDenominator[m]));
+            for (int b = part.measureFirstBeat[m]; b < part.measureFirstBeat[m + 1]; b++) {
+                sb.append(" | ");
+                if (part.beatVoice[b] > 0) sb.append('v').append(part.beatVoice[b] + 1).append(' ');
+                if (part.isRest(b)) {
+                    sb.append('r');
+                } else {
+                    for (int n = part.beatFirstNote[b]; n < part.beatFirstNote[b + 1]; n++) {
+                        if (n > part.beatFirstNote[b]) sb.append(' ');
+                        sb.append(part.noteString[n] + 1).append(':');
+                        int flags = part.noteFlags[n];
+                        if ((flags & TabPart.NOTE_DEAD) != 0) sb.append('x');
+                        else if ((flags & TabPart.NOTE_GHOST) != 0) sb.append('(').append(part.noteFret[n]).append(')');
+                        else sb.append(part.noteFret[n]);
+                        if ((flags & TabPart.NOTE_TIE) != 0) sb.append('~');
+                    }
+                }
+                sb.append(' ').append(part.beatDurationNum[b]).append('/').append(part.beatDurationDen[b]);
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Lines of one string, located through an offset table instead of split copies. */
+    private static final class Text extends TabLines {
+        private final String text;
+        private final int[] lineStart;
+        private final int lines;
+
+        Text(String header, String text) {
+            super(header);
+            this.text = text != null ? text : "";
+            int[] starts = new int[1024];
+            int count = 0;
+            int pos = 0;
+            while (pos <= this.text.length()) {
+                if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = pos;
+                int nl = this.text.indexOf('\n', pos);
+                if (nl < 0) break;
+                pos = nl + 1;
+            }
+            this.lineStart = starts;
+            this.lines = count;
+        }
+
+        @Override
+        public int size() {
+            return header.length + lines;
+        }
+
+        @Override
+        public String get(int row) {
+            if (row < header.length) return header[row];
+            int line = row - header.length;
+            int start = lineStart[line];
+            int end = line + 1 < lines ? lineStart[line + 1] - 1 : text.length();
+            if (end > start && text.charAt(end - 1) == '\r') end--;
+            return text.substring(start, end);
+        }
+    }
+}
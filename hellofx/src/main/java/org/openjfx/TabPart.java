@@ -0,0 +1,371 @@
+package org.openjfx;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * One Songsterr tab part held as flat primitive arrays: measures index into beats and beats
+ * index into notes, so a part costs a few arrays however many measures it has.
+ * Built by streaming the part JSON once; the JSON itself is not kept.
+ */
+final class TabPart {
+
+    static final int NOTE_TIE = 1;
+    static final int NOTE_DEAD = 2;
+    static final int NOTE_GHOST = 4;
+    static final int BEAT_REST = 1;
+
+    final String name;
+    final String instrument;
+    final int strings;
+    /** Open-string MIDI notes, highest string first, as Songsterr lists them. */
+    final int[] tuning;
+
+    final int measureCount;
+    final int[] measureNumerator;
+    final int[] measureDenominator;
+    /** Beats of measure m are measureFirstBeat[m] until measureFirstBeat[m + 1]. */
+    final int[] measureFirstBeat;
+
+    final int beatCount;
+    final byte[] beatVoice;
+    /** Beat length as a fraction of a whole note. */
+    final short[] beatDurationNum;
+    final short[] beatDurationDen;
+    final byte[] beatFlags;
+    /** Notes of beat b are beatFirstNote[b] until beatFirstNote[b + 1]. */
+    final int[] beatFirstNote;
+
+    final int noteCount;
+    /** String index, 0 being the first entry of {@link #tuning}. */
+    final byte[] noteString;
+    final byte[] noteFret;
+    final byte[] noteFlags;
+
+    /** Tempo changes: from measure tempoMeasure[i] on, tempoBpm[i] quarter notes per minute. */
+    final int[] tempoMeasure;
+    final float[] tempoBpm;
+
+    private TabPart(Builder b) {
+        name = b.name;
+        instrument = b.instrument;
+        strings = b.strings;
+        tuning = b.tuning;
+        measureCount = b.measures;
+        measureNumerator = Arrays.copyOf(b.measureNumerator, measureCount);
+        measureDenominator = Arrays.copyOf(b.measureDenominator, measureCount);
+        measureFirstBeat = Arrays.copyOf(b.measureFirstBeat, measureCount + 1);
+        measureFirstBeat[measureCount] = b.beats;
+        beatCount = b.beats;
+        beatVoice = Arrays.copyOf(b.beatVoice, beatCount);
+        beatDurationNum = Arrays.copyOf(b.beatDurationNum, beatCount);
+        beatDurationDen = Arrays.copyOf(b.beatDurationDen, beatCount);
+        beatFlags = Arrays.copyOf(b.beatFlags, beatCount);
+        beatFirstNote = Arrays.copyOf(b.beatFirstNote, beatCount + 1);
+        beatFirstNote[beatCount] = b.notes;
+        noteCount = b.notes;
+        noteString = Arrays.copyOf(b.noteString, noteCount);
+        noteFret = Arrays.copyOf(b.noteFret, noteCount);
+        noteFlags = Arrays.copyOf(b.noteFlags, noteCount);
+        tempoMeasure = Arrays.copyOf(b.tempoMeasure, b.tempos);
+        tempoBpm = Arrays.copyOf(b.tempoBpm, b.tempos);
+    }
+
+    /** MIDI pitch of a note, or -1 when the string is outside the tuning. */
+    int notePitch(int note) {
+        int string = noteString[note];
+        if (string < 0 || string >= tuning.length) return -1;
+        return tuning[string] + noteFret[note];
+    }
+
+    boolean isRest(int beat) {
+        return (beatFlags[beat] & BEAT_REST) != 0;
+    }
+
+    /** Reads a part from the stream and closes it. */
+    static TabPart read(JsonFactory factory, InputStream in) throws IOException {
+        try (JsonParser parser = factory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Tab part is not a JSON object.");
+            }
+            Builder b = new Builder();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "name":
+                        b.name = parser.getValueAsString();
+                        break;
+                    case "instrument":
+                        b.instrument = parser.getValueAsString();
+                        break;
+                    case "strings":
+                        b.strings = parser.getValueAsInt();
+                        break;
+                    case "tuning":
+                        if (value == JsonToken.START_ARRAY) b.tuning = readInts(parser);
+                        else parser.skipChildren();
+                        break;
+                    case "measures":
+                        if (value == JsonToken.START_ARRAY) readMeasures(parser, b);
+                        else parser.skipChildren();
+                        break;
+                    case "automations":
+                        if (value == JsonToken.START_OBJECT) readAutomations(parser, b);
+                        else parser.skipChildren();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (b.tuning == null) b.tuning = new int[0];
+            if (b.strings <= 0) b.strings = b.tuning.length;
+            return new TabPart(b);
+        }
+    }
+
+    private static void readMeasures(JsonParser parser, Builder b) throws IOException {
+        int numerator = 4, denominator = 4; // a measure without a signature keeps the previous one
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int measure = b.startMeasure();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("signature".equals(field) && value == JsonToken.START_ARRAY) {
+                    int[] signature = readInts(parser);
+                    if (signature.length == 2 && signature[0] > 0 && signature[1] > 0) {
+                        numerator = signature[0];
+                        denominator = signature[1];
+                    }
+                } else if ("voices".equals(field) && value == JsonToken.START_ARRAY) {
+                    int voice = 0;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readVoice(parser, b, voice++);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            b.measureNumerator[measure] = numerator;
+            b.measureDenominator[measure] = denominator;
+        }
+    }
+
+    private static void readVoice(JsonParser parser, Builder b, int voice) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"beats".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                readBeat(parser, b, voice);
+            }
+        }
+    }
+
+    private static void readBeat(JsonParser parser, Builder b, int voice) throws IOException {
+        int beat = b.startBeat(voice);
+        int type = 4;
+        int durationNum = 0, durationDen = 0;
+        boolean rest = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type":
+                    type = Math.max(1, parser.getValueAsInt(4));
+                    break;
+                case "duration":
+                    if (value == JsonToken.START_ARRAY) {
+                        int[] duration = readInts(parser);
+                        if (duration.length == 2 && duration[0] > 0 && duration[1] > 0) {
+                            durationNum = duration[0];
+                            durationDen = duration[1];
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "rest":
+                    rest = value == JsonToken.VALUE_TRUE;
+                    break;
+                case "notes":
+                    if (value != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readNote(parser, b);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (durationDen == 0) {
+            durationNum = 1;
+            durationDen = type;
+        }
+        b.beatDurationNum[beat] = (short) durationNum;
+        b.beatDurationDen[beat] = (short) durationDen;
+        // A beat whose only notes are rest markers is a rest too
+        if (rest || b.notes == b.beatFirstNote[beat]) b.beatFlags[beat] |= BEAT_REST;
+    }
+
+    private static void readNote(JsonParser parser, Builder b) throws IOException {
+        int string = -1, fret = 0, flags = 0;
+        boolean rest = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "string":
+                    string = parser.getValueAsInt(-1);
+                    break;
+                case "fret":
+                    fret = parser.getValueAsInt(0);
+                    break;
+                case "rest":
+                    rest = value == JsonToken.VALUE_TRUE;
+                    break;
+                case "tie":
+                    if (value == JsonToken.VALUE_TRUE) flags |= NOTE_TIE;
+                    break;
+                case "dead":
+                    if (value == JsonToken.VALUE_TRUE) flags |= NOTE_DEAD;
+                    break;
+                case "ghost":
+                    if (value == JsonToken.VALUE_TRUE) flags |= NOTE_GHOST;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (!rest && string >= 0) b.addNote(string, fret, flags);
+    }
+
+    private static void readAutomations(JsonParser parser, Builder b) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"tempo".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                int measure = 0;
+                double bpm = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    parser.nextToken();
+                    if ("measure".equals(key)) measure = parser.getValueAsInt(0);
+                    else if ("bpm".equals(key)) bpm = parser.getValueAsDouble(0);
+                    else parser.skipChildren();
+                }
+                if (bpm > 0) b.addTempo(measure, (float) bpm);
+            }
+        }
+    }
+
+    /**
+     * Reads the current array of numbers; the parser must be on its START_ARRAY. A truncated
+     * document ends the array rather than failing.
+     */
+    private static int[] readInts(JsonParser parser) throws IOException {
+        int[] values = new int[8];
+        int n = 0;
+        for (JsonToken token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token.isNumeric()) {
+                if (n == values.length) values = Arrays.copyOf(values, n * 2);
+                values[n++] = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /** Growable arrays filled while parsing, trimmed once by the constructor. */
+    private static final class Builder {
+        String name = "";
+        String instrument = "";
+        int strings;
+        int[] tuning;
+
+        int measures;
+        int[] measureNumerator = new int[64];
+        int[] measureDenominator = new int[64];
+        int[] measureFirstBeat = new int[65];
+
+        int beats;
+        byte[] beatVoice = new byte[256];
+        short[] beatDurationNum = new short[256];
+        short[] beatDurationDen = new short[256];
+        byte[] beatFlags = new byte[256];
+        int[] beatFirstNote = new int[257];
+
+        int notes;
+        byte[] noteString = new byte[512];
+        byte[] noteFret = new byte[512];
+        byte[] noteFlags = new byte[512];
+
+        int tempos;
+        int[] tempoMeasure = new int[4];
+        float[] tempoBpm = new float[4];
+
+        int startMeasure() {
+            if (measures == measureNumerator.length) {
+                int size = measures * 2;
+                measureNumerator = Arrays.copyOf(measureNumerator, size);
+                measureDenominator = Arrays.copyOf(measureDenominator, size);
+                measureFirstBeat = Arrays.copyOf(measureFirstBeat, size + 1);
+            }
+            measureFirstBeat[measures] = beats;
+            return measures++;
+        }
+
+        int startBeat(int voice) {
+            if (beats == beatVoice.length) {
+                int size = beats * 2;
+                beatVoice = Arrays.copyOf(beatVoice, size);
+                beatDurationNum = Arrays.copyOf(beatDurationNum, size);
+                beatDurationDen = Arrays.copyOf(beatDurationDen, size);
+                beatFlags = Arrays.copyOf(beatFlags, size);
+                beatFirstNote = Arrays.copyOf(beatFirstNote, size + 1);
+            }
+            beatVoice[beats] = (byte) voice;
+            beatFirstNote[beats] = notes;
+            return beats++;
+        }
+
+        void addNote(int string, int fret, int flags) {
+            if (notes == noteString.length) {
+                int size = notes * 2;
+                noteString = Arrays.copyOf(noteString, size);
+                noteFret = Arrays.copyOf(noteFret, size);
+                noteFlags = Arrays.copyOf(noteFlags, size);
+            }
+            noteString[notes] = (byte) string;
+            noteFret[notes] = (byte) fret;
+            noteFlags[notes] = (byte) flags;
+            notes++;
+        }
+
+        void addTempo(int measure, float bpm) {
+            if (tempos == tempoMeasure.length) {
+                tempoMeasure = Arrays.copyOf(tempoMeasure, tempos * 2);
+                tempoBpm = Arrays.copyOf(tempoBpm, tempos * 2);
+            }
+            tempoMeasure[tempos] = measure;
+            tempoBpm[tempos] = bpm;
+            tempos++;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.openjfx;
+
+import java.util.List;
+
+/** One track of a {@link SongItem}; the part id and parsed tab are filled in as they load. */
+final class TrackItem {
+    private final int songId;
+    private final String artist;
+    private final String title;
+    private final int index;
+    private final String name;
+    private final String instrument;
+    private final String hash;
+    private final int difficulty;
+    private final List<Integer> tuning;
+    private volatile int partId = -1;
+    private volatile TabPart tabPart;
+
+    TrackItem(int songId, String artist, String title, int index, String name, String instrument,
+              String hash, int difficulty, List<Integer> tuning) {
+        this.songId = songId;
+        this.artist = artist;
+        this.title = title;
+        this.index = index;
+        this.name = name;
+        this.instrument = instrument;
+        this.hash = hash;
+        this.difficulty = difficulty;
+        this.tuning = tuning;
+    }
+
+    int songId() {
+        return songId;
+    }
+
+    String artist() {
+        return artist;
+    }
+
+    String title() {
+        return title;
+    }
+
+    int index() {
+        return index;
+    }
+
+    int partId() {
+        return partId;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String instrument() {
+        return instrument;
+    }
+
+    String hash() {
+        return hash;
+    }
+
+    int difficulty() {
+        return difficulty;
+    }
+
+    List<Integer> tuning() {
+        return tuning;
+    }
+
+    TabPart tabPart() {
+        return tabPart;
+    }
+
+    void setSongMeta(int partId, int serverIndex) {
+        if (partId >= 0) {
+            this.partId = partId;
+        }
+    }
+
+    void setTabPart(TabPart tabPart) {
+        this.tabPart = tabPart;
+    }
+
+    String displayLabel() {
+        String diff = difficulty >= 0 ? " (Difficulty " + difficulty + ")" : "";
+        String part = partId >= 0 ? " (Part " + (partId + 1) + ")" : "";
+        return name + " — " + instrument + diff + part;
+    }
+}
@@ -0,0 +1,88 @@
+package org.openjfx;
+
+import be.tarsos.dsp.AudioDispatcher;
+import be.tarsos.dsp.AudioEvent;
+import be.tarsos.dsp.AudioProcessor;
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+
+/**
+ * Pitch-only chain for tuning: small, high-overlap frames through {@link TunerPitchDetector} with
+ * no spectral peak or Constant-Q stages. The search is limited to the selected string, or to the
+ * whole guitar in Auto, and so is the window: the detector analyses only the newest samples the
+ * string's range needs, from 384 (~9 ms) for high E to the whole buffer for low E and Auto.
+ * Emits a frame without magnitudes or notes once per hop.
+ */
+final class TunerPipeline {
+
+    static final int WINDOW = 1536; // buffer per hop, ~35 ms; a full period 500 cents below low E
+    static final int HOP = 128;     // a needle update every ~2.9 ms at 44.1 kHz
+
+    /** How far from a string a pitch is still searched for, or snapped to in Auto. */
+    static final double STRING_RANGE_RATIO = Math.pow(2.0, 500 / 1200.0);
+
+    private final float sampleRate;
+    private final AnalysisPipeline.Listener listener;
+    private final TunerPitchDetector detector;
+    private final AnalysisFrame frame = new AnalysisFrame(0, 0, 0);
+    private volatile AnalysisPlan plan;
+    private volatile int stringIndex = -1;
+    private LatencyProbe probe;
+
+    TunerPipeline(float sampleRate, double a4RefHz, AnalysisPipeline.Listener listener) {
+        this.sampleRate = sampleRate;
+        this.listener = listener;
+        this.plan = AnalysisPlan.create(a4RefHz, null, AnalysisPlan.STANDARD_TUNING);
+        double[] strings = plan.stringHz;
+        this.detector = new TunerPitchDetector(sampleRate, WINDOW,
+                strings[0] / STRING_RANGE_RATIO, strings[strings.length - 1] * STRING_RANGE_RATIO);
+    }
+
+    /** The dispatcher must deliver {@link #WINDOW} samples with a {@link #HOP} hop. */
+    void attach(AudioDispatcher dispatcher) {
+        dispatcher.addAudioProcessor(new AudioProcessor() {
+            @Override
+            public boolean process(AudioEvent audioEvent) {
+                PitchDetectionResult result = detector.getPitch(audioEvent.getFloatBuffer());
+                if (probe != null) probe.mark(LatencyProbe.Stage.YIN);
+                frame.timeStamp = audioEvent.getTimeStamp();
+                frame.captureNanos = probe != null ? probe.captureNanos() : 0;
+                frame.pitchHz = result.getPitch();
+                frame.probability = result.getProbability();
+                listener.onFrame(frame);
+                return true;
+            }
+            @Override
+            public void processingFinished() { }
+        });
+    }
+
+    /** Optional latency instrumentation; set before the dispatcher starts. */
+    void setLatencyProbe(LatencyProbe probe) {
+        this.probe = probe;
+    }
+
+    void setA4RefHz(double a4RefHz) {
+        if (a4RefHz == plan.a4RefHz) return;
+        plan = AnalysisPlan.create(a4RefHz, null, AnalysisPlan.STANDARD_TUNING);
+        restrictTo(stringIndex);
+    }
+
+    /** Limits the search to one string (index into {@link AnalysisPlan#stringHz}), or all strings for -1. */
+    void restrictTo(int stringIndex) {
+        this.stringIndex = stringIndex;
+        double[] strings = plan.stringHz;
+        if (stringIndex < 0) {
+            detector.setRange(strings[0] / STRING_RANGE_RATIO, strings[strings.length - 1] * STRING_RANGE_RATIO);
+        } else {
+            detector.setRange(strings[stringIndex] / STRING_RANGE_RATIO, strings[stringIndex] * STRING_RANGE_RATIO);
+        }
+    }
+
+    AnalysisPlan plan() {
+        return plan;
+    }
+
+    float sampleRate() {
+        return sampleRate;
+    }
+}
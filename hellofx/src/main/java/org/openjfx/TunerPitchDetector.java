@@ -0,0 +1,156 @@
+package org.openjfx;
+
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import be.tarsos.dsp.pitch.PitchDetector;
+import be.tarsos.dsp.util.fft.FloatFFT;
+
+/**
+ * YIN over a restricted lag range, with the difference function computed through an FFT
+ * cross-correlation instead of the O(N^2) direct sum. Only the newest samples of each buffer are
+ * analysed: twice the longest lag, so the integration length still covers a full period of the
+ * lowest frequency searched, and a new note fills the window sooner the higher the range.
+ * Allocation-free; the returned result is reused.
+ */
+final class TunerPitchDetector implements PitchDetector {
+
+    private static final double THRESHOLD = 0.15;
+    // Windows grow in steps of this many samples, so a small change of A4 keeps the same window
+    // and FFT; the range of the low E string rounds up to the whole 1536-sample tuner buffer
+    private static final int WINDOW_STEP = 128;
+
+    private final float sampleRate;
+    private final int windowSize;
+    private final double[] energy;
+    private final double[] cmndf;
+    private final PitchDetectionResult result = new PitchDetectionResult();
+    // Swapped as one object, so the audio thread never pairs a range with another range's window
+    private volatile Search search;
+
+    /** A lag range with the window it needs, and that window's FFT and scratch. */
+    private static final class Search {
+        final int minLag;
+        final int maxLag;
+        final int window;
+        final int fftSize;
+        final FloatFFT fft;
+        final float[] spectrum;
+        final float[] product;
+
+        Search(int minLag, int maxLag, int window) {
+            this.minLag = minLag;
+            this.maxLag = maxLag;
+            this.window = window;
+            this.fftSize = Integer.highestOneBit(window - 1) << 1;
+            this.fft = new FloatFFT(fftSize);
+            this.spectrum = new float[fftSize * 2];
+            this.product = new float[fftSize * 2];
+        }
+    }
+
+    /** windowSize is the longest buffer analysed, what the search of the lowest range needs. */
+    TunerPitchDetector(float sampleRate, int windowSize, double minHz, double maxHz) {
+        this.sampleRate = sampleRate;
+        this.windowSize = windowSize;
+        this.energy = new double[windowSize + 1];
+        this.cmndf = new double[windowSize / 2 + 2];
+        setRange(minHz, maxHz);
+    }
+
+    /**
+     * Restricts the search to [minHz, maxHz] and sizes the window for it; lags are capped at half
+     * of windowSize. Allocates the window's FFT, so call it when the range changes, not per frame.
+     */
+    void setRange(double minHz, double maxHz) {
+        int maxLag = (int) Math.min(windowSize / 2, Math.ceil(sampleRate / minHz));
+        int minLag = (int) Math.max(2, Math.min(maxLag - 1, Math.floor(sampleRate / maxHz)));
+        int window = Math.min(windowSize, (2 * maxLag + WINDOW_STEP - 1) / WINDOW_STEP * WINDOW_STEP);
+        Search current = search;
+        if (current != null && current.minLag == minLag && current.maxLag == maxLag) return;
+        search = new Search(minLag, maxLag, window);
+    }
+
+    /** Samples analysed per call for the current range, the newest of each buffer. */
+    int window() {
+        return search.window;
+    }
+
+    @Override
+    public PitchDetectionResult getPitch(float[] audioBuffer) {
+        Search s = search;
+        int minLag = s.minLag;
+        int maxLag = s.maxLag;
+        int fftSize = s.fftSize;
+        float[] spectrum = s.spectrum;
+        float[] product = s.product;
+        int n = Math.min(s.window, audioBuffer.length);
+        int off = audioBuffer.length - n;
+        int w = n - maxLag;
+        if (w <= 0) return unpitched(0);
+
+        // a = first w samples, b = whole window, transformed together as a + ib
+        for (int j = 0; j < fftSize; j++) {
+            spectrum[2 * j] = j < w ? audioBuffer[off + j] : 0f;
+            spectrum[2 * j + 1] = j < n ? audioBuffer[off + j] : 0f;
+        }
+        s.fft.complexForward(spectrum);
+        int mask = fftSize - 1;
+        for (int k = 0; k < fftSize; k++) {
+            int nk = (fftSize - k) & mask;
+            float zr = spectrum[2 * k], zi = spectrum[2 * k + 1];
+            float cr = spectrum[2 * nk], ci = -spectrum[2 * nk + 1];
+            // A = (Z + conj(Z[-k])) / 2, B = (Z - conj(Z[-k])) / 2i
+            float ar = (zr + cr) * 0.5f, ai = (zi + ci) * 0.5f;
+            float br = (zi - ci) * 0.5f, bi = -(zr - cr) * 0.5f;
+            // conj(A) * B is the spectrum of sum_j a[j] * b[j + tau]
+            product[2 * k] = ar * br + ai * bi;
+            product[2 * k + 1] = ar * bi - ai * br;
+        }
+        s.fft.complexInverse(product, true);
+
+        energy[0] = 0;
+        for (int j = 0; j < n; j++) {
+            energy[j + 1] = energy[j] + (double) audioBuffer[off + j] * audioBuffer[off + j];
+        }
+
+        // Cumulative mean normalized difference
+        cmndf[0] = 1;
+        double runningSum = 0;
+        for (int tau = 1; tau <= maxLag; tau++) {
+            double d = energy[w] + (energy[tau + w] - energy[tau]) - 2.0 * product[2 * tau];
+            if (d < 0) d = 0;
+            runningSum += d;
+            cmndf[tau] = runningSum > 0 ? d * tau / runningSum : 1;
+        }
+
+        int tau = -1;
+        int best = minLag;
+        for (int t = minLag; t <= maxLag; t++) {
+            if (cmndf[t] < cmndf[best]) best = t;
+            if (cmndf[t] < THRESHOLD) {
+                while (t + 1 <= maxLag && cmndf[t + 1] < cmndf[t]) t++;
+                tau = t;
+                break;
+            }
+        }
+
+        if (tau < 0) return unpitched(1 - cmndf[best]);
+        result.setPitch(sampleRate / (float) parabolicLag(tau, maxLag));
+        result.setProbability((float) (1 - cmndf[tau]));
+        result.setPitched(true);
+        return result;
+    }
+
+    private PitchDetectionResult unpitched(double probability) {
+        result.setPitch(-1);
+        result.setProbability((float) Math.max(0, probability));
+        result.setPitched(false);
+        return result;
+    }
+
+    private double parabolicLag(int tau, int last) {
+        if (tau < 1 || tau + 1 > last) return tau;
+        double s0 = cmndf[tau - 1], s1 = cmndf[tau], s2 = cmndf[tau + 1];
+        double denom = 2 * (2 * s1 - s2 - s0);
+        return denom != 0 ? tau + (s2 - s0) / denom : tau;
+    }
+}
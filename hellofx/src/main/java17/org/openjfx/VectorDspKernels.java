@@ -0,0 +1,61 @@
+package org.openjfx;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link DspKernels} on {@code jdk.incubator.vector} at the platform's preferred width (256-bit
+ * on AVX2, 512-bit on AVX-512). Each kernel runs whole vectors and finishes the tail with the
+ * scalar loop. Built by the {@code vector} profile only, and loaded by {@link DspKernels}
+ * reflectively, so a JVM without the incubator module never links it.
+ */
+final class VectorDspKernels extends DspKernels {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // Float lanes add this many blocks before they go into the double sum, so their rounding
+    // stays that of 16 terms however long the window; one reduction per block costs 3x the time
+    private static final int BLOCKS_PER_SUM = 16;
+
+    @Override
+    String describe() {
+        return "vector " + FLOATS.vectorBitSize() + "-bit";
+    }
+
+    @Override
+    double squaredDistance(float[] x, int a, int b, int length) {
+        int step = FLOATS.length();
+        double sum = 0;
+        int i = 0;
+        for (int bound = length - 2 * step; i <= bound; ) {
+            // Two accumulators so consecutive FMAs do not wait on each other
+            FloatVector acc0 = FloatVector.zero(FLOATS);
+            FloatVector acc1 = FloatVector.zero(FLOATS);
+            for (int runBound = Math.min(bound, i + (BLOCKS_PER_SUM - 1) * 2 * step); i <= runBound; i += 2 * step) {
+                FloatVector d0 = FloatVector.fromArray(FLOATS, x, a + i).sub(FloatVector.fromArray(FLOATS, x, b + i));
+                FloatVector d1 = FloatVector.fromArray(FLOATS, x, a + i + step).sub(FloatVector.fromArray(FLOATS, x, b + i + step));
+                acc0 = d0.fma(d0, acc0);
+                acc1 = d1.fma(d1, acc1);
+            }
+            sum += acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            float delta = x[a + i] - x[b + i];
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    @Override
+    void log1pScaled(float[] in, float[] weight, float[] out, int n) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, in, i).lanewise(VectorOperators.LOG1P)
+                    .mul(FloatVector.fromArray(FLOATS, weight, i))
+                    .intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = (float) Math.log1p(in[i]) * weight[i];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.openjfx;
+
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The vector kernels against the scalar ones, to the relative 2e-6 {@link DspKernels} promises.
+ * Skipped unless the vector kernels are loaded: JDK 17+ with the {@code vector} profile, whose
+ * test runs add the incubator module.
+ */
+class DspKernelsTest {
+
+    private static final float SAMPLE_RATE = SignalFixtures.SAMPLE_RATE;
+    private static final int WINDOW = PipelineConfig.DEFAULT.pitchWindow;
+    private static final double TOLERANCE = 2e-6;
+
+    private final DspKernels scalar = DspKernels.SCALAR;
+    private final DspKernels vector = DspKernels.INSTANCE;
+
+    @BeforeEach
+    void requireVectorKernels() {
+        assumeTrue(vector != scalar, "vector kernels not loaded");
+    }
+
+    @Test
+    void squaredDistanceAgreesAtEveryLength() {
+        float[][] frames = {
+                SignalFixtures.sine(2 * WINDOW, 82.41),
+                SignalFixtures.pluck(2 * WINDOW, 329.63, 15, 1),
+                SignalFixtures.noise(2 * WINDOW, 1),
+        };
+        for (float[] x : frames) {
+            // Lengths that end mid-vector as well as whole ones, so the scalar tail runs too
+            for (int length = 1; length <= WINDOW; length++) {
+                for (int lag : new int[]{1, 17, WINDOW / 2}) {
+                    assertClose(x, lag, length);
+                }
+            }
+        }
+    }
+
+    @Test
+    void squaredDistanceDoesNotDriftOverLongWindows() {
+        // A loud attack then a decay a thousand times quieter: float lanes carried over the whole
+        // window would drop more of each small square the longer it runs
+        int length = 1 << 16;
+        float[] x = SignalFixtures.noise(length + 1, 7);
+        for (int i = 256; i < x.length; i++) x[i] *= 1e-3f;
+        for (int n = WINDOW; n <= length; n *= 2) {
+            assertClose(x, 1, n);
+        }
+    }
+
+    @Test
+    void log1pScaledAgrees() {
+        int n = 216;
+        float[] in = new float[n];
+        float[] weight = new float[n];
+        for (int i = 0; i < n; i++) {
+            in[i] = (float) (Math.abs(Math.sin(i * 0.37)) * 40);
+            weight[i] = (float) (1 / Math.sqrt(1 + i / 36.0));
+        }
+        float[] expected = new float[n];
+        float[] actual = new float[n];
+        scalar.log1pScaled(in, weight, expected, n);
+        vector.log1pScaled(in, weight, actual, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(expected[i], actual[i], TOLERANCE * Math.abs(expected[i]), "bin " + i);
+        }
+    }
+
+    @Test
+    void detectorAgreesOnBothKernels() {
+        AnalysisPlan plan = AnalysisPlan.create(440.0, null, AnalysisPlan.STANDARD_TUNING);
+        double[] range = AnalysisPipeline.searchRange(plan, AnalysisPlan.STANDARD_TUNING);
+        GuitarPitchDetector onScalar = new GuitarPitchDetector(SAMPLE_RATE, WINDOW, range[0], range[1], scalar);
+        GuitarPitchDetector onVector = new GuitarPitchDetector(SAMPLE_RATE, WINDOW, range[0], range[1], vector);
+        for (long seed = 0; seed < 200; seed++) {
+            double midi = 40 + seed % (64 + AnalysisPipeline.FRETS - 40 + 1) + (seed % 5 - 2) * 0.2;
+            double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
+            float[] frame = SignalFixtures.pluck(WINDOW, hz, 15 + seed % 3 * 10, seed);
+            String label = String.format(Locale.ROOT, "pluck seed %d, %.2f Hz", seed, hz);
+
+            PitchDetectionResult expected = onScalar.getPitch(frame);
+            boolean pitched = expected.isPitched();
+            float pitch = expected.getPitch();
+            float probability = expected.getProbability();
+            PitchDetectionResult actual = onVector.getPitch(frame);
+            assertEquals(pitched, actual.isPitched(), label + ": pitched");
+            assertEquals(pitch, actual.getPitch(), TOLERANCE * Math.abs(pitch), label + ": pitch");
+            assertEquals(probability, actual.getProbability(), TOLERANCE, label + ": probability");
+        }
+    }
+
+    private void assertClose(float[] x, int lag, int length) {
+        double expected = scalar.squaredDistance(x, 0, lag, length);
+        double actual = vector.squaredDistance(x, 0, lag, length);
+        assertEquals(expected, actual, TOLERANCE * expected,
+                () -> String.format(Locale.ROOT, "lag %d over %d samples", lag, length));
+    }
+}
@@ -0,0 +1,136 @@
+package org.openjfx;
+
+import be.tarsos.dsp.pitch.PitchDetectionResult;
+import be.tarsos.dsp.pitch.Yin;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The pruned search against TarsosDSP's YIN over every lag, on the pipeline's window and search
+ * range for standard tuning: both must report the same pitch (within a cent, the float sums YIN
+ * uses against the detector's double ones) with the same probability, or both must be unpitched.
+ * The one intended difference is a frame whose first YIN dip is above the range while one in
+ * it also passes: the detector takes the playable one, which is where YIN's octave errors go.
+ */
+class GuitarPitchDetectorTest {
+
+    private static final float SAMPLE_RATE = SignalFixtures.SAMPLE_RATE;
+    private static final int WINDOW = PipelineConfig.DEFAULT.pitchWindow;
+
+    private final double[] range = AnalysisPipeline.searchRange(
+            AnalysisPlan.create(440.0, null, AnalysisPlan.STANDARD_TUNING), AnalysisPlan.STANDARD_TUNING);
+    private final Yin yin = new Yin(SAMPLE_RATE, WINDOW);
+    private final GuitarPitchDetector detector = new GuitarPitchDetector(SAMPLE_RATE, WINDOW, range[0], range[1]);
+
+    @Test
+    void agreesWithYinOnEveryPlayableNote() {
+        // Open low E to the 24th fret of the high E, detuned up to a quarter tone either way
+        for (int midi = 40; midi <= 64 + AnalysisPipeline.FRETS; midi++) {
+            for (double offset = -0.5; offset <= 0.5; offset += 0.25) {
+                double hz = 440.0 * Math.pow(2.0, (midi + offset - 69) / 12.0);
+                String label = String.format(Locale.ROOT, "MIDI %d%+.2f (%.2f Hz)", midi, offset, hz);
+                float pitch = assertAgrees(SignalFixtures.sine(WINDOW, hz), label);
+                assertTrue(pitch > 0, label + " unpitched");
+                assertEquals(0, AnalysisPlan.cents(pitch, hz), 10, label);
+            }
+        }
+    }
+
+    @Test
+    void agreesWithYinOnNoisyPlucks() {
+        int octaveErrors = 0;
+        for (long seed = 0; seed < 600; seed++) {
+            Random random = new Random(seed);
+            double midi = 40 + random.nextInt(64 + AnalysisPipeline.FRETS - 40 + 1) + random.nextDouble() - 0.5;
+            double snrDb = 15 + random.nextInt(3) * 10;
+            double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
+            float[] frame = SignalFixtures.pluck(WINDOW, hz, snrDb, seed);
+            String label = String.format(Locale.ROOT, "pluck seed %d, %.2f Hz at %.0f dB SNR", seed, hz, snrDb);
+
+            PitchDetectionResult full = yin.getPitch(frame);
+            float fullPitch = full.getPitch();
+            if (fullPitch <= range[1]) {
+                assertAgrees(frame, label);
+                continue;
+            }
+            // YIN's first dip is above the range: the detector may take a subharmonic within it
+            float pitch = detector.getPitch(frame).getPitch();
+            assertTrue(pitch > 0, label + " unpitched");
+            if (Math.abs(AnalysisPlan.cents(pitch, fullPitch)) < 1) continue;
+            assertTrue(pitch >= range[0] && pitch <= range[1], label + ": " + pitch + " Hz out of range");
+            // A multiple within half a semitone: string partials run sharp, so not an exact one
+            long multiple = Math.round(fullPitch / pitch);
+            assertTrue(multiple >= 2, label + ": YIN " + fullPitch + " Hz over " + pitch + " Hz");
+            assertEquals(0, AnalysisPlan.cents(pitch * multiple, fullPitch), 50,
+                    label + ": YIN " + fullPitch + " Hz over " + pitch + " Hz");
+            octaveErrors++;
+        }
+        // Some of these frames do make YIN jump above the range, or this checks nothing
+        assertTrue(octaveErrors > 0, "no frame exercised the in-range preference");
+    }
+
+    @Test
+    void agreesWithYinOnChords() {
+        int[][] voicings = {
+                {40, 47, 52, 56, 59, 64}, // E
+                {45, 52, 57, 61, 64},     // A
+                {45, 52, 57, 60, 64},     // Am
+                {50, 57, 62, 66},         // D
+                {43, 47, 50, 55, 59, 67}, // G
+                {48, 52, 55, 60, 64},     // C
+                {41, 48, 53, 57, 60, 65}, // F barre
+                {40, 47, 52},             // E5
+                {64, 67, 71, 76},         // Em high up the neck
+        };
+        for (int[] voicing : voicings) {
+            assertAgrees(SignalFixtures.chord(WINDOW, voicing), "chord " + Arrays.toString(voicing));
+        }
+    }
+
+    @Test
+    void agreesWithYinOnNoise() {
+        for (long seed = 1; seed <= 20; seed++) {
+            float pitch = assertAgrees(SignalFixtures.noise(WINDOW, seed), "noise seed " + seed);
+            assertFalse(pitch > 0, "noise seed " + seed + " pitched at " + pitch + " Hz");
+        }
+    }
+
+    @Test
+    void agreesWithYinOnSilence() {
+        float pitch = assertAgrees(new float[WINDOW], "silence");
+        assertFalse(pitch > 0, "silence pitched at " + pitch + " Hz");
+    }
+
+    @Test
+    void agreesWithYinBelowThePlayableRange() {
+        // Bass notes under the low E: found by the fallback over the remaining lags
+        long before = detector.fullSearches();
+        for (int midi = 33; midi <= 36; midi++) {
+            double hz = 440.0 * Math.pow(2.0, (midi - 69) / 12.0);
+            assertAgrees(SignalFixtures.sine(WINDOW, hz), "MIDI " + midi);
+        }
+        assertTrue(detector.fullSearches() > before, "no fallback search ran");
+    }
+
+    /** Checks both detectors on the frame and returns the agreed pitch, -1 when unpitched. */
+    private float assertAgrees(float[] frame, String label) {
+        PitchDetectionResult full = yin.getPitch(frame);
+        float fullPitch = full.getPitch();
+        float fullProbability = full.getProbability();
+        boolean fullPitched = full.isPitched();
+        PitchDetectionResult pruned = detector.getPitch(frame);
+        assertEquals(fullPitched, pruned.isPitched(), label + ": pitched");
+        if (!fullPitched) return -1;
+        assertEquals(0, AnalysisPlan.cents(pruned.getPitch(), fullPitch), 1,
+                () -> String.format(Locale.ROOT, "%s: %.2f Hz against YIN's %.2f Hz", label, pruned.getPitch(), fullPitch));
+        assertEquals(fullProbability, pruned.getProbability(), 1e-3, label + ": probability");
+        return fullPitch;
+    }
+}
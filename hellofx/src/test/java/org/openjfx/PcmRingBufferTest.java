@@ -0,0 +1,59 @@
+package org.openjfx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Capture time lookups on a ring fed in equal chunks, chunk k (from 1) stamped k * 1000 and
+ * ending at byte k * CHUNK.
+ */
+class PcmRingBufferTest {
+
+    private static final int CHUNK = 8;
+    private static final int MARKS = PcmRingBuffer.MARKS;
+
+    @Test
+    void findsTheChunkHoldingTheByteBeforeAPosition() {
+        PcmRingBuffer ring = feed(10);
+        assertEquals(1000, ring.captureNanosAt(1));
+        assertEquals(1000, ring.captureNanosAt(CHUNK));
+        assertEquals(2000, ring.captureNanosAt(CHUNK + 1));
+        assertEquals(7000, ring.captureNanosAt(7 * CHUNK - 3));
+        assertEquals(10_000, ring.captureNanosAt(10 * CHUNK));
+    }
+
+    @Test
+    void knowsEveryChunkBeforeTheMarksWrap() {
+        PcmRingBuffer ring = feed(MARKS - 1);
+        assertEquals(1000, ring.captureNanosAt(1));
+        assertEquals((MARKS - 1) * 1000L, ring.captureNanosAt((MARKS - 1) * CHUNK));
+    }
+
+    @Test
+    void forgetsChunksOlderThanTheMarks() {
+        int chunks = 3 * MARKS + 5;
+        PcmRingBuffer ring = feed(chunks);
+        // Marks of the last MARKS - 1 chunks are read, the slot of the one before is the next
+        // write's. A chunk is placed by the end of the chunk before it, so the oldest one found
+        // is a chunk newer than that
+        int oldest = chunks - MARKS + 3;
+        assertEquals(oldest * 1000L, ring.captureNanosAt((long) oldest * CHUNK));
+        assertEquals(0, ring.captureNanosAt((long) (oldest - 1) * CHUNK));
+        // Far behind: unknown, not the time of the oldest chunk looked at
+        assertEquals(0, ring.captureNanosAt(1));
+        assertEquals(chunks * 1000L, ring.captureNanosAt((long) chunks * CHUNK));
+    }
+
+    /** Writes the chunks, reading each back so the ring never fills. */
+    private static PcmRingBuffer feed(int chunks) {
+        PcmRingBuffer ring = new PcmRingBuffer(4 * CHUNK, 2);
+        byte[] chunk = new byte[CHUNK];
+        byte[] sink = new byte[CHUNK];
+        for (int k = 1; k <= chunks; k++) {
+            assertEquals(CHUNK, ring.write(chunk, 0, CHUNK, k * 1000L));
+            assertEquals(CHUNK, ring.read(sink, 0, CHUNK));
+        }
+        return ring;
+    }
+}
@@ -0,0 +1,24 @@
+package org.openjfx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SongIndexTest {
+
+    @Test
+    void recognisesTuningQueries() {
+        for (String query : new String[]{"eb standard bass", "Eb Standard", "ebstandard", "c# standard", "drop d", "drop-D guitar", "dropc"}) {
+            assertTrue(SongIndex.namesTuning(query), query);
+        }
+    }
+
+    @Test
+    void leavesOtherWordsEndingInStandardToTheSearch() {
+        // These go to Songsterr: the index only answers queries that name a tuning
+        for (String query : new String[]{"nonstandard", "substandard blues", "the standard", "standard", "metallica enter", "dropout"}) {
+            assertFalse(SongIndex.namesTuning(query), query);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.openjfx;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Part fetches against {@link SongsterrStubServer} with three CDN hosts: when a hedge goes out,
+ * what happens to the request that loses, and how host health reorders the next fetch.
+ * Every fetch uses a new revision so neither cache answers.
+ */
+class SongsterrHedgingTest {
+
+    private static final int PART_MEASURES = 4;
+    // Far longer than any hedge delay, so a fetch this slow means no hedge went out
+    private static final long STALLED_MILLIS = 3000;
+
+    @TempDir
+    static Path warmUpCacheDir;
+    @TempDir
+    Path cacheDir;
+
+    private SongsterrStubServer stub;
+    private ExecutorService executor;
+    private SongsterrService songsterr;
+    private int nextSong = 1;
+
+    /**
+     * One fetch through a throwaway stub and service first: a cold JVM's first request can take
+     * longer than the default hedge delay, which would rank hosts before any test starts.
+     */
+    @BeforeAll
+    static void warmUp() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try (SongsterrStubServer warm = new SongsterrStubServer(new long[]{0}, new double[]{0}, PART_MEASURES)) {
+            SongsterrService service = new SongsterrService(new SongsterrDiskCache(warmUpCacheDir, 1L << 20), new SongIndex(null), warm.endpoints(), pool);
+            service.tabPart(new SongDetails(1, SongsterrStubServer.revisionOf(1), Collections.emptyMap()), new SongTrackInfo(0, 0)).join();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null) stub.close();
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    void hedgesOnceThePrimaryOutlivesItsP95() throws Exception {
+        start(new long[]{0, 0, 0}, new double[]{0, 0, 0});
+        for (int i = 0; i < 5; i++) fetch();
+        // A fast primary answers before its hedge delay, so nobody else is asked
+        assertEquals(5, stub.requests(0));
+        assertEquals(0, stub.requests(1));
+        assertEquals(0, stub.requests(2));
+
+        CdnHostHealth primary = songsterr.rankedHosts().get(0);
+        assertSame(health(0), primary);
+        long hedgeNanos = primary.hedgeDelayNanos();
+        assertTrue(hedgeNanos >= primary.p95Nanos(), primary.toString());
+
+        stub.setLatency(0, STALLED_MILLIS);
+        long started = System.nanoTime();
+        fetch();
+        long elapsed = System.nanoTime() - started;
+        assertTrue(elapsed >= hedgeNanos, "answered before the hedge delay: " + elapsed / 1_000_000 + " ms");
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(STALLED_MILLIS / 2), "waited for the primary: " + elapsed / 1_000_000 + " ms");
+        assertEquals(6, stub.requests(0));
+        assertEquals(1, stub.requests(1));
+        assertEquals(0, stub.requests(2));
+    }
+
+    @Test
+    void cancelsTheRequestThatLostTheHedge() throws Exception {
+        start(new long[]{STALLED_MILLIS, 0, 0}, new double[]{0, 0, 0});
+        long started = System.nanoTime();
+        fetch();
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(STALLED_MILLIS / 2));
+        assertEquals(1, stub.requests(1));
+        // The loser is cancelled once the winner completes the fetch, from the completing thread
+        awaitTrue(() -> health(0).abandoned() == 1, () -> "primary request was not cancelled: " + health(0));
+        assertEquals(0, health(1).abandoned());
+    }
+
+    @Test
+    void demotesAFailingHost() throws Exception {
+        // The same delay everywhere, so the ranking turns on the failure and not on timing noise
+        start(new long[]{20, 20, 20}, new double[]{1, 0, 0});
+        fetch();
+        assertEquals(1, stub.failures.get());
+        assertEquals(1, stub.requests(1));
+
+        List<CdnHostHealth> ranked = songsterr.rankedHosts();
+        assertSame(health(1), ranked.get(0), ranked.toString());
+        fetch();
+        // The failing host is not tried first again
+        assertEquals(1, stub.requests(0));
+        assertEquals(2, stub.requests(1));
+    }
+
+    @Test
+    void demotesASlowHost() throws Exception {
+        start(new long[]{STALLED_MILLIS, 0, 0}, new double[]{0, 0, 0});
+        fetch();
+        awaitTrue(() -> health(0).abandoned() == 1, () -> "primary request was not cancelled: " + health(0));
+
+        // The slow host lost a hedge: it now ranks behind the winner and the untried host
+        List<CdnHostHealth> ranked = songsterr.rankedHosts();
+        assertSame(health(1), ranked.get(0), ranked.toString());
+        assertSame(health(2), ranked.get(1), ranked.toString());
+        assertSame(health(0), ranked.get(2), ranked.toString());
+    }
+
+    private void start(long[] latencyMillis, double[] failureRate) throws Exception {
+        stub = new SongsterrStubServer(latencyMillis, failureRate, PART_MEASURES);
+        executor = Executors.newFixedThreadPool(4);
+        songsterr = new SongsterrService(new SongsterrDiskCache(cacheDir, 1L << 30), new SongIndex(null), stub.endpoints(), executor);
+    }
+
+    private TabPart fetch() {
+        int songId = nextSong++;
+        SongDetails details = new SongDetails(songId, SongsterrStubServer.revisionOf(songId), Collections.emptyMap());
+        return songsterr.tabPart(details, new SongTrackInfo(0, 0)).join();
+    }
+
+    /** Health of the stub's host by its index in the endpoints. */
+    private CdnHostHealth health(int host) {
+        String base = stub.endpoints().partBases.get(host);
+        for (CdnHostHealth health : songsterr.rankedHosts()) {
+            if (health.host.equals(base)) return health;
+        }
+        throw new AssertionError("no health for " + base);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, Supplier<String> message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.openjfx;
+
+import be.tarsos.dsp.SpectralPeakProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The picker's noise floor against {@link SpectralPeakProcessor#calculateNoiseFloor} with the
+ * pipeline's settings, bit for bit. The sorted window it slides from bin to bin is the part to
+ * break: ties, and spectra in order where every step moves a value across the whole window.
+ */
+class SpectralPeakPickerTest {
+
+    private static final int MEDIAN_LENGTH = 31;
+    private static final float NOISE_FACTOR = 1.2f;
+    // The pipeline's spectrum, odd and even lengths, and ones shorter than the median window
+    private static final int[] SIZES = {PipelineConfig.DEFAULT.spectralBins(), 1000, 257, 64, 31, 20, 13};
+
+    @Test
+    void matchesTarsosOnRandomSpectra() {
+        for (int size : SIZES) {
+            for (long seed = 1; seed <= 5; seed++) {
+                Random random = new Random(seed);
+                float[] magnitudes = new float[size];
+                for (int i = 0; i < size; i++) {
+                    // Mostly a low floor with some loud bins, as a magnitude spectrum looks
+                    magnitudes[i] = (float) (-Math.log(1 - random.nextDouble()) * (random.nextInt(20) == 0 ? 50 : 1));
+                }
+                assertMatches(magnitudes, "random size " + size + " seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void matchesTarsosOnTiedSpectra() {
+        for (int size : SIZES) {
+            Random random = new Random(size);
+            float[] fewLevels = new float[size];
+            for (int i = 0; i < size; i++) fewLevels[i] = random.nextInt(4) * 0.5f;
+            assertMatches(fewLevels, "four levels size " + size);
+
+            float[] flat = new float[size];
+            Arrays.fill(flat, 0.25f);
+            assertMatches(flat, "flat size " + size);
+            assertMatches(new float[size], "zero size " + size);
+
+            // Long runs of one value with steps between them
+            float[] steps = new float[size];
+            for (int i = 0; i < size; i++) steps[i] = i / 40;
+            assertMatches(steps, "steps size " + size);
+        }
+    }
+
+    @Test
+    void matchesTarsosOnSortedSpectra() {
+        for (int size : SIZES) {
+            float[] rising = new float[size];
+            float[] falling = new float[size];
+            for (int i = 0; i < size; i++) {
+                rising[i] = (float) Math.sqrt(i + 1);
+                falling[size - 1 - i] = rising[i];
+            }
+            assertMatches(rising, "rising size " + size);
+            assertMatches(falling, "falling size " + size);
+        }
+    }
+
+    @Test
+    void matchesTarsosOnReversedSpectra() {
+        // Real-looking spectra backwards: harmonics falling off towards the low bins
+        for (int size : SIZES) {
+            float[] harmonics = new float[size];
+            Random random = new Random(size);
+            for (int i = 0; i < size; i++) {
+                harmonics[i] = 0.01f * random.nextFloat() + (i % 12 == 5 ? 10f / (1 + i / 12) : 0);
+            }
+            float[] reversed = new float[size];
+            for (int i = 0; i < size; i++) reversed[i] = harmonics[size - 1 - i];
+            assertMatches(harmonics, "harmonics size " + size);
+            assertMatches(reversed, "reversed harmonics size " + size);
+        }
+    }
+
+    @Test
+    void matchesTarsosWhenReused() {
+        // One picker over frame after frame, as the pipeline runs it
+        int size = PipelineConfig.DEFAULT.spectralBins();
+        SpectralPeakPicker picker = new SpectralPeakPicker(size, MEDIAN_LENGTH, NOISE_FACTOR, 8, 60);
+        Random random = new Random(42);
+        for (int frame = 0; frame < 20; frame++) {
+            float[] magnitudes = new float[size];
+            for (int i = 0; i < size; i++) magnitudes[i] = frame % 2 == 0 ? random.nextFloat() : random.nextInt(3);
+            picker.calculateNoiseFloor(magnitudes);
+            float[] expected = SpectralPeakProcessor.calculateNoiseFloor(magnitudes.clone(), MEDIAN_LENGTH, NOISE_FACTOR);
+            assertArrayEquals(expected, picker.noiseFloor(), "frame " + frame);
+        }
+    }
+
+    private static void assertMatches(float[] magnitudes, String label) {
+        float[] expected = SpectralPeakProcessor.calculateNoiseFloor(magnitudes.clone(), MEDIAN_LENGTH, NOISE_FACTOR);
+        SpectralPeakPicker picker = new SpectralPeakPicker(magnitudes.length, MEDIAN_LENGTH, NOISE_FACTOR, 8, 60);
+        float[] input = magnitudes.clone();
+        picker.calculateNoiseFloor(input);
+        assertArrayEquals(expected, picker.noiseFloor(), label);
+        assertArrayEquals(magnitudes, input, label + ": magnitudes changed");
+    }
+}
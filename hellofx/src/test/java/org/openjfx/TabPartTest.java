@@ -0,0 +1,53 @@
+package org.openjfx;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TabPartTest {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final String MEASURES = "\"measures\":[{\"signature\":[3,4],\"voices\":[{\"beats\":["
+            + "{\"type\":4,\"notes\":[{\"string\":0,\"fret\":3}]},"
+            + "{\"type\":4,\"rest\":true}]}]}]";
+
+    @Test
+    void readsTuningAndMeasures() throws IOException {
+        TabPart part = read("{\"name\":\"Lead\",\"strings\":6,\"tuning\":[64,59,55,50,45,40]," + MEASURES + "}");
+        assertArrayEquals(new int[]{64, 59, 55, 50, 45, 40}, part.tuning);
+        assertEquals(6, part.strings);
+        assertEquals(1, part.measureCount);
+        assertEquals(3, part.measureNumerator[0]);
+        assertEquals(2, part.beatCount);
+        assertEquals(67, part.notePitch(0));
+    }
+
+    @Test
+    void ignoresATuningThatIsNotAnArray() throws IOException {
+        for (String tuning : new String[]{"null", "40", "\"EADGBE\"", "{\"notes\":[40,45]}"}) {
+            TabPart part = read("{\"name\":\"Lead\",\"tuning\":" + tuning + "," + MEASURES + ",\"instrument\":\"Bass\"}");
+            assertArrayEquals(new int[0], part.tuning, tuning);
+            // The fields after it are still read
+            assertEquals(1, part.measureCount, tuning);
+            assertEquals(2, part.beatCount, tuning);
+            assertEquals("Bass", part.instrument, tuning);
+        }
+    }
+
+    @Test
+    void skipsWhatIsNotANumberInsideTheTuning() throws IOException {
+        TabPart part = read("{\"tuning\":[64,null,[1,2],{\"x\":3},59]," + MEASURES + "}");
+        assertArrayEquals(new int[]{64, 59}, part.tuning);
+        assertEquals(1, part.measureCount);
+    }
+
+    private static TabPart read(String json) throws IOException {
+        return TabPart.read(FACTORY, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,83 @@
+package org.openjfx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tuner's search for each string of standard tuning and for Auto, as {@link TunerPipeline}
+ * sets it up: the window the range needs, and pitches across the range from the newest samples.
+ */
+class TunerPitchDetectorTest {
+
+    private static final float SAMPLE_RATE = SignalFixtures.SAMPLE_RATE;
+    private static final int WINDOW = TunerPipeline.WINDOW;
+    private static final double RATIO = TunerPipeline.STRING_RANGE_RATIO;
+
+    private final double[] strings = AnalysisPlan.create(440.0, null, AnalysisPlan.STANDARD_TUNING).stringHz;
+    private final TunerPitchDetector detector = new TunerPitchDetector(SAMPLE_RATE, WINDOW, 80, 400);
+
+    @Test
+    void sizesTheWindowForTheString() {
+        restrictTo(-1);
+        assertEquals(WINDOW, detector.window(), "Auto");
+        restrictTo(0);
+        assertEquals(WINDOW, detector.window(), "low E");
+        restrictTo(strings.length - 1);
+        assertEquals(384, detector.window(), "high E");
+        // Higher strings never need more
+        int previous = WINDOW;
+        for (int s = 0; s < strings.length; s++) {
+            restrictTo(s);
+            assertTrue(detector.window() <= previous, "string " + s + ": " + detector.window());
+            previous = detector.window();
+        }
+    }
+
+    @Test
+    void findsEveryStringAcrossItsRange() {
+        for (int s = -1; s < strings.length; s++) {
+            restrictTo(s);
+            double[] bases = s < 0 ? strings : new double[]{strings[s]};
+            for (double base : bases) {
+                for (int cents = -450; cents <= 450; cents += 75) {
+                    double hz = base * Math.pow(2.0, cents / 1200.0);
+                    assertPitch(SignalFixtures.sine(WINDOW, hz), hz,
+                            String.format(Locale.ROOT, "string %d, %.2f Hz", s, hz));
+                }
+            }
+        }
+    }
+
+    @Test
+    void listensOnlyToTheNewestSamples() {
+        // The string 40 cents flat, then in tune for just the window the string needs
+        for (int s = 0; s < strings.length; s++) {
+            restrictTo(s);
+            int window = detector.window();
+            float[] flat = SignalFixtures.sine(WINDOW, strings[s] * Math.pow(2.0, -40 / 1200.0));
+            float[] inTune = SignalFixtures.sine(window, strings[s]);
+            float[] buffer = new float[WINDOW];
+            System.arraycopy(flat, 0, buffer, 0, WINDOW - window);
+            System.arraycopy(inTune, 0, buffer, WINDOW - window, window);
+            assertPitch(buffer, strings[s], "string " + s);
+        }
+    }
+
+    private void restrictTo(int string) {
+        if (string < 0) {
+            detector.setRange(strings[0] / RATIO, strings[strings.length - 1] * RATIO);
+        } else {
+            detector.setRange(strings[string] / RATIO, strings[string] * RATIO);
+        }
+    }
+
+    private void assertPitch(float[] buffer, double hz, String label) {
+        float pitch = detector.getPitch(buffer).getPitch();
+        assertTrue(pitch > 0, label + " unpitched");
+        assertEquals(0, AnalysisPlan.cents(pitch, hz), 1, label);
+    }
+}